@@ -16,11 +16,12 @@
 package com.kstenschke.shifter;
 
 import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NonNls;
 
 /**
  * Utility functions for preferences handling
- * All preferences of the shifter plugin are stored on application level (not per project)
+ * All preferences of the shifter plugin are stored on application level, except for the data type guessing rules (per project)
  */
 public class ShifterPreferences {
 
@@ -37,12 +38,24 @@ public class ShifterPreferences {
     @NonNls
     private static final String PROPERTY_IS_ACTIVE_PHP_ARRAY_LONG_TO_SHORT = "PluginShifter.IsActivePhpArrayLongToShort";
     @NonNls
+    private static final String PROPERTY_IS_ACTIVE_PROJECT_SCOPE_VOCABULARY = "PluginShifter.IsActiveProjectScopeVocabulary";
+    @NonNls
     private static final String PROPERTY_IS_ACTIVE_PRESERVE_CASE = "PluginShifter.IsActivePreserveCase";
     @NonNls
     private static final String PROPERTY_SIZE_SHIFT_MORE = "PluginShifter.SizeShiftMore";
     @NonNls
+    private static final String PROPERTY_SIZE_BUDGET = "PluginShifter.SizeBudget";
+    @NonNls
+    private static final String PROPERTY_PARALLEL_SORT_MIN_LINES = "PluginShifter.ParallelSortMinLines";
+    @NonNls
+    private static final String PROPERTY_SORTING_MODE = "PluginShifter.SortingMode";
+    @NonNls
+    private static final String PROPERTY_EXTERNAL_SORT_MIN_SIZE = "PluginShifter.ExternalSortMinSize";
+    @NonNls
     private static final String PROPERTY_MODE_SHIFT_NUMERICAL_BLOCK = "PluginShifter.ModeShiftNumericalBlock";
     @NonNls
+    private static final String PROPERTY_DATA_TYPE_RULES = "PluginShifter.DataTypeRules";
+    @NonNls
     private static final String PROPERTY_FILE_ENDINGS_MILLISECONDS = "PluginShifter.FileEndingsMilliseconds";
     @NonNls
     private static final String PROPERTY_FILE_ENDINGS_SECONDS = "PluginShifter.FileEndingsMilliseconds";
@@ -51,9 +64,19 @@ public class ShifterPreferences {
     public static final String DEFAULT_FILE_ENDINGS_MILLISECONDS = "java,js,py";
     public static final String DEFAULT_FILE_ENDINGS_SECONDS     = "mysql,php,phtml,sql";
 
+    // Amount of characters to be processed, beyond which shift strategies degrade to bounded variants
+    public static final int DEFAULT_SIZE_BUDGET = 2000000;
+
+    // Amount of lines from which on sorting is done in parallel, in the background
+    public static final int DEFAULT_PARALLEL_SORT_MIN_LINES = 50000;
+
+    // Amount of characters from which on sorting spills sorted runs of lines into temporary files
+    public static final int DEFAULT_EXTERNAL_SORT_MIN_SIZE = 50000000;
+
     // Sorting modes
     public static final Integer SORTING_MODE_CASE_SENSITIVE     = 0;
     public static final Integer SORTING_MODE_CASE_INSENSITIVE   = 1;
+    public static final Integer SORTING_MODE_LOCALE             = 2;
 
     // Sorting modes: numerical block selection
     public static final Integer SORTING_MODE_NUMERICAL_BLOCK_ENUM    = 0;
@@ -106,6 +129,22 @@ public class ShifterPreferences {
         PropertiesComponent.getInstance().setValue(PROPERTY_SIZE_SHIFT_MORE, size);
     }
 
+    public static void saveSizeBudget(String size) {
+        PropertiesComponent.getInstance().setValue(PROPERTY_SIZE_BUDGET, size);
+    }
+
+    public static void saveParallelSortMinLines(String amountLines) {
+        PropertiesComponent.getInstance().setValue(PROPERTY_PARALLEL_SORT_MIN_LINES, amountLines);
+    }
+
+    public static void saveExternalSortMinSize(String size) {
+        PropertiesComponent.getInstance().setValue(PROPERTY_EXTERNAL_SORT_MIN_SIZE, size);
+    }
+
+    public static void saveSortingMode(Integer mode) {
+        PropertiesComponent.getInstance().setValue(PROPERTY_SORTING_MODE, mode.toString());
+    }
+
     public static void saveShiftNumericalBlockMode(int mode) {
         PropertiesComponent.getInstance().setValue(PROPERTY_MODE_SHIFT_NUMERICAL_BLOCK, String.valueOf(mode));
     }
@@ -139,6 +178,28 @@ public class ShifterPreferences {
         PropertiesComponent.getInstance().setValue(PROPERTY_IS_ACTIVE_PHP_ARRAY_SHORT_TO_LONG, isActiveShortToLong ? "1":"0");
     }
 
+    /**
+     * @param project
+     * @param rules     Custom rules of guessing data types by variable names, one per line: regular expression = data type
+     */
+    public static void saveDataTypeRules(Project project, String rules) {
+        PropertiesComponent.getInstance(project).setValue(PROPERTY_DATA_TYPE_RULES, rules);
+    }
+
+    /**
+     * @param  project
+     * @return String   Custom rules of guessing data types by variable names, of the given project
+     */
+    public static String getDataTypeRules(Project project) {
+        String rules = PropertiesComponent.getInstance(project).getValue(PROPERTY_DATA_TYPE_RULES);
+
+        return null == rules ? "" : rules;
+    }
+
+    public static void saveIsActiveProjectScopeVocabulary(boolean isActive) {
+        PropertiesComponent.getInstance().setValue(PROPERTY_IS_ACTIVE_PROJECT_SCOPE_VOCABULARY, isActive ? "1":"0");
+    }
+
     private static String getDictionary(String dictionaryName) {
         String dictionary = null;
 
@@ -174,6 +235,66 @@ public class ShifterPreferences {
         }
     }
 
+    /**
+     * @return int  Amount of characters to be processed, beyond which shift strategies degrade to bounded variants
+     */
+    public static int getSizeBudget() {
+        try {
+            String size = PropertiesComponent.getInstance().getValue(PROPERTY_SIZE_BUDGET);
+
+            return size == null ? DEFAULT_SIZE_BUDGET : Integer.parseInt(size);
+        } catch(NullPointerException e) {
+            return DEFAULT_SIZE_BUDGET;
+        } catch(NumberFormatException e) {
+            return DEFAULT_SIZE_BUDGET;
+        }
+    }
+
+    /**
+     * @return int  Amount of lines from which on sorting is done in parallel, in the background
+     */
+    public static int getParallelSortMinLines() {
+        try {
+            String amountLines = PropertiesComponent.getInstance().getValue(PROPERTY_PARALLEL_SORT_MIN_LINES);
+
+            return amountLines == null ? DEFAULT_PARALLEL_SORT_MIN_LINES : Integer.parseInt(amountLines);
+        } catch(NullPointerException e) {
+            return DEFAULT_PARALLEL_SORT_MIN_LINES;
+        } catch(NumberFormatException e) {
+            return DEFAULT_PARALLEL_SORT_MIN_LINES;
+        }
+    }
+
+    /**
+     * @return int  Amount of characters from which on sorting spills sorted runs of lines into temporary files
+     */
+    public static int getExternalSortMinSize() {
+        try {
+            String size = PropertiesComponent.getInstance().getValue(PROPERTY_EXTERNAL_SORT_MIN_SIZE);
+
+            return size == null ? DEFAULT_EXTERNAL_SORT_MIN_SIZE : Integer.parseInt(size);
+        } catch(NullPointerException e) {
+            return DEFAULT_EXTERNAL_SORT_MIN_SIZE;
+        } catch(NumberFormatException e) {
+            return DEFAULT_EXTERNAL_SORT_MIN_SIZE;
+        }
+    }
+
+    /**
+     * @return int  Sorting mode of lines and list items: case-sensitive, case-insensitive or by locale collation
+     */
+    public static int getSortingMode() {
+        try {
+            String mode = PropertiesComponent.getInstance().getValue(PROPERTY_SORTING_MODE);
+
+            return mode == null ? SORTING_MODE_CASE_INSENSITIVE : Integer.parseInt(mode);
+        } catch(NullPointerException e) {
+            return SORTING_MODE_CASE_INSENSITIVE;
+        } catch(NumberFormatException e) {
+            return SORTING_MODE_CASE_INSENSITIVE;
+        }
+    }
+
     public static int getShiftNumericalBlockMode() {
         try {
             String mode = PropertiesComponent.getInstance().getValue(PROPERTY_MODE_SHIFT_NUMERICAL_BLOCK);
@@ -237,6 +358,13 @@ public class ShifterPreferences {
         return getBooleanPropertyWithDefaultFalse(PROPERTY_IS_ACTIVE_PHP_ARRAY_SHORT_TO_LONG);
     }
 
+    /**
+     * @return Boolean  Shift quoted strings and PHP variables among values found in all files of the project?
+     */
+    public static Boolean getIsActiveProjectScopeVocabulary() {
+        return getBooleanPropertyWithDefaultFalse(PROPERTY_IS_ACTIVE_PROJECT_SCOPE_VOCABULARY);
+    }
+
     public static Boolean getBooleanPropertyWithDefaultTrue(String property) {
         try {
             String value = PropertiesComponent.getInstance().getValue(property);
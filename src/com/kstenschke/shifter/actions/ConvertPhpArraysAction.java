@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.command.UndoConfirmationPolicy;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.PhpArraysConverter;
+import com.kstenschke.shifter.utils.UtilsEnvironment;
+import com.kstenschke.shifter.utils.UtilsFile;
+
+import javax.swing.*;
+import java.util.List;
+
+/**
+ * Convert PHP Arrays Action: convert all (nested) arrays of the selection, or of the whole file, to short or long syntax
+ */
+class ConvertPhpArraysAction extends AnAction {
+
+    /**
+     * Disable when no editor of a PHP file available
+     *
+     * @param event Action system event
+     */
+    public void update(AnActionEvent event) {
+        Editor editor = event.getData(PlatformDataKeys.EDITOR);
+        event.getPresentation().setEnabled(editor != null && UtilsFile.isPhpFile(UtilsEnvironment.getDocumentFilename(editor.getDocument())));
+    }
+
+    /**
+     * Ask for the syntax to convert to, convert all arrays in one pass
+     *
+     * @param event ActionSystem event
+     */
+    public void actionPerformed(final AnActionEvent event) {
+        final Project currentProject = event.getData(PlatformDataKeys.PROJECT);
+        final Editor editor          = event.getData(PlatformDataKeys.EDITOR);
+        if (null == editor) {
+            return;
+        }
+
+        Object[] options = {StaticTexts.SHIFT_OPTION_CONVERT_PHP_ARRAYS_TO_SHORT_SYNTAX, StaticTexts.SHIFT_OPTION_CONVERT_PHP_ARRAYS_TO_LONG_SYNTAX};
+        int option = JOptionPane.showOptionDialog(null, StaticTexts.MESSAGE_CONVERT_PHP_ARRAYS, StaticTexts.ACTION_LABEL_CONVERT_PHP_ARRAYS,
+                JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
+        if (JOptionPane.CLOSED_OPTION == option) {
+            return;
+        }
+
+        final Document document       = editor.getDocument();
+        SelectionModel selectionModel = editor.getSelectionModel();
+
+        final int offsetStart = selectionModel.hasSelection() ? selectionModel.getSelectionStart() : 0;
+        int offsetEnd         = selectionModel.hasSelection() ? selectionModel.getSelectionEnd() : document.getTextLength();
+
+        // Scan before entering the write action
+        final List<PhpArraysConverter.Edit> edits = PhpArraysConverter.getEditsInDocument(
+                document.getText(new TextRange(offsetStart, offsetEnd)), 0 == option);
+
+        CommandProcessor.getInstance().executeCommand(currentProject, new Runnable() {
+            @Override
+            public void run() {
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        int amountConverted = PhpArraysConverter.convertInDocument(document, offsetStart, edits);
+                        UtilsEnvironment.notify(currentProject, StaticTexts.ACTION_LABEL_CONVERT_PHP_ARRAYS,
+                                String.format(StaticTexts.MESSAGE_CONVERTED_PHP_ARRAYS, amountConverted));
+                    }
+                });
+            }
+        }, StaticTexts.ACTION_LABEL_CONVERT_PHP_ARRAYS, UndoConfirmationPolicy.DO_NOT_REQUEST_CONFIRMATION);
+    }
+}
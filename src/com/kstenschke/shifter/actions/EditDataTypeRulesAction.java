@@ -0,0 +1,78 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.ShifterPreferences;
+import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.DataTypeGuesser;
+import com.kstenschke.shifter.utils.UtilsEnvironment;
+import org.apache.commons.lang.StringUtils;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Edit Data Type Rules Action: edit the project's custom rules of guessing data types of @param variables by their names
+ */
+class EditDataTypeRulesAction extends AnAction {
+
+    /**
+     * Disable when no project available
+     *
+     * @param event Action system event
+     */
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(event.getData(PlatformDataKeys.PROJECT) != null);
+    }
+
+    /**
+     * Show dialog to edit the rules, store them w/ the project
+     *
+     * @param event ActionSystem event
+     */
+    public void actionPerformed(final AnActionEvent event) {
+        Project currentProject = event.getData(PlatformDataKeys.PROJECT);
+        if (null == currentProject) {
+            return;
+        }
+
+        JTextArea textArea = new JTextArea(ShifterPreferences.getDataTypeRules(currentProject), 12, 50);
+        JPanel panel = new JPanel();
+        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+        panel.add(new JLabel(StaticTexts.MESSAGE_DATA_TYPE_RULES));
+        panel.add(new JScrollPane(textArea));
+
+        int option = JOptionPane.showConfirmDialog(null, panel, StaticTexts.ACTION_LABEL_DATA_TYPE_RULES, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (JOptionPane.OK_OPTION != option) {
+            return;
+        }
+
+        String rules = textArea.getText().trim();
+        List<String> invalidRules = new ArrayList<String>();
+        DataTypeGuesser.parseCustomRules(rules, invalidRules);
+        if (!invalidRules.isEmpty()) {
+            UtilsEnvironment.notify(currentProject, StaticTexts.ACTION_LABEL_DATA_TYPE_RULES,
+                    StaticTexts.MESSAGE_INVALID_DATA_TYPE_RULES + StringUtils.join(invalidRules, ", "));
+        }
+
+        ShifterPreferences.saveDataTypeRules(currentProject, rules);
+    }
+}
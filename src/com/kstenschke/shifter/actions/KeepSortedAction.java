@@ -0,0 +1,89 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.command.UndoConfirmationPolicy;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.models.KeepSortedBlock;
+import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.UtilsEnvironment;
+
+/**
+ * Keep Lines Sorted Action: mark selected lines to be kept sorted, or unmark the lines at the caret
+ */
+class KeepSortedAction extends AnAction {
+
+    /**
+     * Disable when no editor available
+     *
+     * @param event Action system event
+     */
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(event.getData(PlatformDataKeys.EDITOR) != null);
+    }
+
+    /**
+     * Toggle keeping the selected lines / lines at caret sorted
+     *
+     * @param event ActionSystem event
+     */
+    public void actionPerformed(final AnActionEvent event) {
+        final Project currentProject = event.getData(PlatformDataKeys.PROJECT);
+        final Editor editor          = event.getData(PlatformDataKeys.EDITOR);
+        if (null == editor) {
+            return;
+        }
+
+        CommandProcessor.getInstance().executeCommand(currentProject, new Runnable() {
+            @Override
+            public void run() {
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        Document document             = editor.getDocument();
+                        SelectionModel selectionModel = editor.getSelectionModel();
+
+                        int lineNumberStart;
+                        int lineNumberEnd;
+                        if (selectionModel.hasSelection()) {
+                            lineNumberStart = document.getLineNumber(selectionModel.getSelectionStart());
+                            lineNumberEnd   = document.getLineNumber(selectionModel.getSelectionEnd());
+                            if (lineNumberEnd > lineNumberStart && document.getLineStartOffset(lineNumberEnd) == selectionModel.getSelectionEnd()) {
+                                // Selection ends at start of line: that line is not selected
+                                lineNumberEnd--;
+                            }
+                        } else {
+                            lineNumberStart = document.getLineNumber(editor.getCaretModel().getOffset());
+                            lineNumberEnd   = lineNumberStart;
+                        }
+
+                        boolean isMarked = KeepSortedBlock.toggle(document, lineNumberStart, lineNumberEnd);
+                        UtilsEnvironment.notify(currentProject, StaticTexts.ACTION_LABEL_KEEP_SORTED,
+                                isMarked ? StaticTexts.MESSAGE_KEEP_SORTED_MARKED : StaticTexts.MESSAGE_KEEP_SORTED_UNMARKED);
+                    }
+                });
+            }
+        }, StaticTexts.ACTION_LABEL_KEEP_SORTED, UndoConfirmationPolicy.DO_NOT_REQUEST_CONFIRMATION);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.command.UndoConfirmationPolicy;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.models.KeepSortedBlock;
+import com.kstenschke.shifter.resources.StaticTexts;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sort Edited Lines Action: move lines edited within the block kept sorted at the caret into place
+ */
+class SortEditedLinesAction extends AnAction {
+
+    /**
+     * Disable when the caret is not inside a block kept sorted, w/ edited lines
+     *
+     * @param event Action system event
+     */
+    public void update(AnActionEvent event) {
+        event.getPresentation().setEnabled(null != getBlockWithEditedLines(event.getData(PlatformDataKeys.EDITOR)));
+    }
+
+    /**
+     * @param event ActionSystem event
+     */
+    public void actionPerformed(final AnActionEvent event) {
+        final Project currentProject = event.getData(PlatformDataKeys.PROJECT);
+        final Editor editor          = event.getData(PlatformDataKeys.EDITOR);
+        final KeepSortedBlock block  = getBlockWithEditedLines(editor);
+        if (null == block) {
+            return;
+        }
+
+        CommandProcessor.getInstance().executeCommand(currentProject, new Runnable() {
+            @Override
+            public void run() {
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        block.sortEditedLines(editor.getDocument());
+                    }
+                });
+            }
+        }, StaticTexts.ACTION_LABEL_SORT_EDITED_LINES, UndoConfirmationPolicy.DO_NOT_REQUEST_CONFIRMATION);
+    }
+
+    /**
+     * @param  editor
+     * @return KeepSortedBlock  Block kept sorted at the caret, if it has edited lines, or null
+     */
+    @Nullable
+    private static KeepSortedBlock getBlockWithEditedLines(@Nullable Editor editor) {
+        if (null == editor) {
+            return null;
+        }
+        KeepSortedBlock block = KeepSortedBlock.getBlockAtOffset(editor.getDocument(), editor.getCaretModel().getOffset());
+
+        return null != block && block.hasEditedLines() ? block : null;
+    }
+}
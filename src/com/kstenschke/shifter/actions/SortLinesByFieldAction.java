@@ -0,0 +1,66 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.actions;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.PlatformDataKeys;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.editor.SelectionModel;
+import com.kstenschke.shifter.models.ShiftableSelection;
+
+/**
+ * Sort Lines by Field Action: sort the selected lines by a column, the value following a string (ex: ":" or "=")
+ * or a regular expression's match
+ */
+class SortLinesByFieldAction extends AnAction {
+
+    /**
+     * Disable when no editor w/ a multi-line selection available
+     *
+     * @param event Action system event
+     */
+    public void update(AnActionEvent event) {
+        Editor editor = event.getData(PlatformDataKeys.EDITOR);
+        event.getPresentation().setEnabled(editor != null && editor.getSelectionModel().hasSelection()
+                && editor.getDocument().getLineNumber(editor.getSelectionModel().getSelectionStart())
+                    < editor.getDocument().getLineNumber(editor.getSelectionModel().getSelectionEnd()));
+    }
+
+    /**
+     * Ask for the field to sort by, sort the selected lines
+     *
+     * @param event ActionSystem event
+     */
+    public void actionPerformed(final AnActionEvent event) {
+        Editor editor = event.getData(PlatformDataKeys.EDITOR);
+        if (null == editor || !editor.getSelectionModel().hasSelection()) {
+            return;
+        }
+
+        Document document             = editor.getDocument();
+        SelectionModel selectionModel = editor.getSelectionModel();
+        int offsetStart = selectionModel.getSelectionStart();
+        int offsetEnd   = selectionModel.getSelectionEnd();
+        if (offsetEnd > offsetStart && document.getLineStartOffset(document.getLineNumber(offsetEnd)) == offsetEnd) {
+            // Selection ends at start of line: that line is not selected
+            offsetEnd--;
+        }
+
+        ShiftableSelection.sortSelectedLinesByField(event.getData(PlatformDataKeys.PROJECT), document, offsetStart, offsetEnd);
+    }
+}
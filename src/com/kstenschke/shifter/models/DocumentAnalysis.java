@@ -0,0 +1,203 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.models;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.ShifterPreferences;
+import com.kstenschke.shifter.models.shiftableTypes.CssUnit;
+import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.UtilsPhp;
+import com.kstenschke.shifter.utils.UtilsTextual;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Facts about a document's text (lines, words, quoted strings, PHP variables, CSS units), computed lazily once and
+ * shared by all components involved in a shift. Analyses of documents are cached until the document gets modified,
+ * closed documents are released along w/ their analysis.
+ * Texts exceeding the size budget are not scanned as a whole, but only within a window around the given offset, which
+ * is notified once per analysis (i.e. per modification stamp of the document).
+ */
+public class DocumentAnalysis {
+
+    private static final Map<Document, DocumentAnalysis> analysesByDocument = new WeakHashMap<Document, DocumentAnalysis>();
+
+    private final CharSequence text;
+    private final long modificationStamp;
+
+    private final Map<Integer, String> linesAtOffsets   = new HashMap<Integer, String>();
+    private final Map<String, String> wordsAtOffsets    = new HashMap<String, String>();
+    private final Map<String, List<String>> quotedStringsByQuoteChar = new HashMap<String, List<String>>();
+
+    private List<String> phpVariables;
+    private String mostProminentCssUnit;
+
+    private boolean isNotifiedScanWindow = false;
+
+    /**
+     * Constructor, for analysing text that is not (or not necessarily) a document's current content. Not cached.
+     *
+     * @param text
+     */
+    public DocumentAnalysis(CharSequence text) {
+        this(text, -1);
+    }
+
+    private DocumentAnalysis(CharSequence text, long modificationStamp) {
+        this.text              = text;
+        this.modificationStamp = modificationStamp;
+    }
+
+    /**
+     * @param  document
+     * @return DocumentAnalysis     Analysis of the document's current content, reused until the document is modified
+     */
+    @NotNull
+    public static DocumentAnalysis getInstance(Document document) {
+        long modificationStamp = document.getModificationStamp();
+
+        synchronized (analysesByDocument) {
+            DocumentAnalysis analysis = analysesByDocument.get(document);
+            if (analysis == null || analysis.modificationStamp != modificationStamp) {
+                analysis = new DocumentAnalysis(document.getCharsSequence(), modificationStamp);
+                analysesByDocument.put(document, analysis);
+            }
+
+            return analysis;
+        }
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @param  offset
+     * @return String   Trimmed text of the line containing the given offset
+     */
+    public String getLineAtOffset(int offset) {
+        String line = linesAtOffsets.get(offset);
+        if (line == null) {
+            line = UtilsTextual.getLineAtOffset(text, offset);
+            linesAtOffsets.put(offset, line);
+        }
+
+        return line;
+    }
+
+    /**
+     * @param  offset
+     * @param  allowHyphens
+     * @return String   Word at the given offset, or null
+     */
+    public String getWordAtOffset(int offset, boolean allowHyphens) {
+        String key = offset + (allowHyphens ? "-" : "");
+        if (!wordsAtOffsets.containsKey(key)) {
+            wordsAtOffsets.put(key, UtilsTextual.getWordAtOffset(text, offset, allowHyphens));
+        }
+
+        return wordsAtOffsets.get(key);
+    }
+
+    /**
+     * @return boolean  Can the whole text be scanned within the size budget?
+     */
+    private boolean isScannableAsWhole() {
+        return SizeBudget.isWithinBudget(text.length());
+    }
+
+    /**
+     * @param  offset
+     * @param  project          Project to show the notice about the reduced scan in, nullable
+     * @return CharSequence     Part of the text around the given offset, that can be scanned within the size budget
+     */
+    private CharSequence getScanWindow(int offset, @Nullable Project project) {
+        if (!isNotifiedScanWindow) {
+            isNotifiedScanWindow = true;
+            SizeBudget.notifyBudgetExceeded(project, StaticTexts.MESSAGE_SCANNED_AROUND_CARET);
+        }
+
+        int halfBudget = ShifterPreferences.getSizeBudget() / 2;
+
+        int offsetStart = Math.max(0, offset - halfBudget);
+        int offsetEnd   = Math.min(text.length(), offset + halfBudget);
+
+        return text.subSequence(offsetStart, offsetEnd);
+    }
+
+    /**
+     * @param  quoteChar
+     * @param  offset           Offset around which to scan, if the text exceeds the size budget
+     * @param  project          Nullable
+     * @return List<String>     All (distinct) strings wrapped in the given quote character. The list can be modified by the caller.
+     */
+    @NotNull
+    public List<String> getQuotedStrings(String quoteChar, int offset, @Nullable Project project) {
+        if (!isScannableAsWhole()) {
+            return UtilsTextual.extractQuotedStrings(getScanWindow(offset, project), quoteChar);
+        }
+
+        List<String> quotedStrings = quotedStringsByQuoteChar.get(quoteChar);
+        if (quotedStrings == null) {
+            quotedStrings = UtilsTextual.extractQuotedStrings(text, quoteChar);
+            quotedStringsByQuoteChar.put(quoteChar, quotedStrings);
+        }
+
+        return new ArrayList<String>(quotedStrings);
+    }
+
+    /**
+     * @param  offset           Offset around which to scan, if the text exceeds the size budget
+     * @param  project          Nullable
+     * @return List<String>     All (distinct) PHP variable names. The list can be modified by the caller.
+     */
+    @NotNull
+    public List<String> getPhpVariables(int offset, @Nullable Project project) {
+        if (!isScannableAsWhole()) {
+            return UtilsPhp.extractPhpVariables(getScanWindow(offset, project));
+        }
+
+        if (phpVariables == null) {
+            phpVariables = UtilsPhp.extractPhpVariables(text);
+        }
+
+        return new ArrayList<String>(phpVariables);
+    }
+
+    /**
+     * @param  offset   Offset around which to scan, if the text exceeds the size budget
+     * @param  project  Nullable
+     * @return String   Most prominently used CSS unit, 'px' if none used yet
+     */
+    public String getMostProminentCssUnit(int offset, @Nullable Project project) {
+        if (!isScannableAsWhole()) {
+            return CssUnit.determineMostProminentUnit(getScanWindow(offset, project));
+        }
+
+        if (mostProminentCssUnit == null) {
+            mostProminentCssUnit = CssUnit.determineMostProminentUnit(text);
+        }
+
+        return mostProminentCssUnit;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.models;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.editor.RangeMarker;
+import com.intellij.openapi.editor.event.DocumentAdapter;
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.util.Key;
+import com.kstenschke.shifter.ShifterPreferences;
+import com.kstenschke.shifter.models.comparators.AlphanumComparator;
+import com.kstenschke.shifter.utils.LinesDiff;
+import com.kstenschke.shifter.utils.UtilsTextual;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block of lines marked to be kept sorted (ex: imports, dependencies, translation keys), tracked by a range marker.
+ * Lines edited within the block are tracked as well: the "Sort Edited Lines" action moves only those lines into place,
+ * by binary search among the other (still sorted) lines, instead of re-sorting the whole block.
+ */
+public class KeepSortedBlock {
+
+    private static final Key<Blocks> KEY_BLOCKS = Key.create("Shifter.KeepSortedBlocks");
+
+    private final RangeMarker marker;
+
+    // Ranges of lines that were edited since the block was last sorted
+    private final List<RangeMarker> dirtyMarkers = new ArrayList<RangeMarker>();
+
+    private KeepSortedBlock(RangeMarker marker) {
+        this.marker = marker;
+        marker.setGreedyToLeft(true);
+        marker.setGreedyToRight(true);
+    }
+
+    /**
+     * Blocks of a document, listening to the document's changes to track edited lines
+     */
+    private static class Blocks extends DocumentAdapter {
+
+        private final List<KeepSortedBlock> blocks = new ArrayList<KeepSortedBlock>();
+
+        // Changes done by sorting are not edits to be tracked
+        private boolean isSorting = false;
+
+        @Override
+        public void documentChanged(DocumentEvent event) {
+            if (isSorting) {
+                return;
+            }
+
+            Document document = event.getDocument();
+            int offsetStart   = event.getOffset();
+            int offsetEnd     = offsetStart + event.getNewLength();
+            for (KeepSortedBlock block : blocks) {
+                if (block.marker.isValid() && offsetStart <= block.marker.getEndOffset() && offsetEnd >= block.marker.getStartOffset()) {
+                    block.addEditedRange(document, offsetStart, offsetEnd);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark given lines to be kept sorted (sorting them initially), or unmark the block that contains the given start line
+     *
+     * @param  document
+     * @param  lineNumberStart
+     * @param  lineNumberEnd
+     * @return boolean          Were the lines marked? (false: existing block was unmarked)
+     */
+    public static boolean toggle(Document document, int lineNumberStart, int lineNumberEnd) {
+        Blocks blocks = document.getUserData(KEY_BLOCKS);
+
+        KeepSortedBlock existingBlock = getBlockAtOffset(document, document.getLineStartOffset(lineNumberStart));
+        if (null != existingBlock) {
+            existingBlock.disposeDirtyMarkers();
+            existingBlock.marker.dispose();
+            blocks.blocks.remove(existingBlock);
+            if (blocks.blocks.isEmpty()) {
+                document.removeDocumentListener(blocks);
+                document.putUserData(KEY_BLOCKS, null);
+            }
+            return false;
+        }
+
+        if (null == blocks) {
+            blocks = new Blocks();
+            document.putUserData(KEY_BLOCKS, blocks);
+            document.addDocumentListener(blocks);
+        }
+
+        List<String> lines = UtilsTextual.extractLines(document, lineNumberStart, lineNumberEnd);
+        AlphanumComparator comparator = new AlphanumComparator(ShifterPreferences.getSortingMode());
+        comparator.sort(lines);
+        replaceLines(blocks, document, lineNumberStart, lineNumberEnd, lines);
+
+        blocks.blocks.add(new KeepSortedBlock(document.createRangeMarker(
+                document.getLineStartOffset(lineNumberStart), document.getLineEndOffset(lineNumberEnd))));
+
+        return true;
+    }
+
+    /**
+     * @param  document
+     * @param  offset
+     * @return KeepSortedBlock  Block of lines kept sorted, that contains the given offset, or null
+     */
+    @Nullable
+    public static KeepSortedBlock getBlockAtOffset(Document document, int offset) {
+        Blocks blocks = document.getUserData(KEY_BLOCKS);
+        if (null == blocks) {
+            return null;
+        }
+
+        for (KeepSortedBlock block : blocks.blocks) {
+            if (block.marker.isValid() && offset >= block.marker.getStartOffset() && offset <= block.marker.getEndOffset()) {
+                return block;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Move lines edited since the block was last sorted into place: the edited lines are removed, and inserted by binary
+     * search on natural sort keys among the block's other lines, which are still sorted. Only the lines probed by the
+     * search are read from the document, unchanged lines are not touched.
+     *
+     * @param document
+     */
+    public void sortEditedLines(final Document document) {
+        final int lineNumberStart = document.getLineNumber(marker.getStartOffset());
+        int lineNumberEnd         = document.getLineNumber(marker.getEndOffset());
+        if (lineNumberEnd > lineNumberStart && document.getLineStartOffset(lineNumberEnd) == marker.getEndOffset()) {
+            lineNumberEnd--;
+        }
+
+        boolean[] isEdited = new boolean[lineNumberEnd - lineNumberStart + 1];
+        for (RangeMarker dirtyMarker : dirtyMarkers) {
+            if (dirtyMarker.isValid()) {
+                int lineFrom = Math.max(lineNumberStart, document.getLineNumber(dirtyMarker.getStartOffset()));
+                int lineTo   = Math.min(lineNumberEnd, document.getLineNumber(dirtyMarker.getEndOffset()));
+                for (int lineNumber = lineFrom; lineNumber <= lineTo; lineNumber++) {
+                    isEdited[lineNumber - lineNumberStart] = true;
+                }
+            }
+        }
+        disposeDirtyMarkers();
+
+        List<String> linesEdited = new ArrayList<String>();
+        for (int index = 0; index < isEdited.length; index++) {
+            if (isEdited[index]) {
+                linesEdited.add(UtilsTextual.getLine(document, lineNumberStart + index));
+            }
+        }
+        if (linesEdited.isEmpty()) {
+            return;
+        }
+
+        Blocks blocks = document.getUserData(KEY_BLOCKS);
+        AlphanumComparator comparator = new AlphanumComparator(ShifterPreferences.getSortingMode());
+        if (linesEdited.size() == isEdited.length) {
+            // All lines edited: sort the whole block
+            List<String> lines = UtilsTextual.extractLines(document, lineNumberStart, lineNumberEnd);
+            comparator.sort(lines);
+            replaceLines(blocks, document, lineNumberStart, lineNumberEnd, lines);
+            return;
+        }
+
+        blocks.isSorting = true;
+        try {
+            // Remove edited lines, last to first. The last line of the block is removed w/ its preceding line separator
+            for (int lineNumber = lineNumberEnd; lineNumber >= lineNumberStart; lineNumber--) {
+                if (isEdited[lineNumber - lineNumberStart]) {
+                    if (lineNumber == lineNumberEnd) {
+                        document.deleteString(document.getLineEndOffset(lineNumber - 1), document.getLineEndOffset(lineNumber));
+                    } else {
+                        document.deleteString(document.getLineStartOffset(lineNumber), document.getLineStartOffset(lineNumber + 1));
+                    }
+                    lineNumberEnd--;
+                }
+            }
+
+            final int amountLinesSorted = lineNumberEnd - lineNumberStart + 1;
+            List<String> linesSorted = new AbstractList<String>() {
+                @Override
+                public String get(int index) {
+                    return UtilsTextual.getLine(document, lineNumberStart + index);
+                }
+
+                @Override
+                public int size() {
+                    return amountLinesSorted;
+                }
+            };
+            int[] insertionIndices = getInsertionIndices(linesSorted, linesEdited, comparator);
+
+            // Insert runs of edited lines w/ the same insertion index, last to first (keeping preceding line numbers valid)
+            int indexRunEnd = insertionIndices.length;
+            for (int index = insertionIndices.length - 1; index >= 0; index--) {
+                if (index > 0 && insertionIndices[index - 1] == insertionIndices[index]) {
+                    continue;
+                }
+                StringBuilder run = UtilsTextual.joinLines(linesEdited.subList(index, indexRunEnd));
+                run.setLength(run.length() - 1);
+
+                int insertionIndex = insertionIndices[index];
+                if (0 == insertionIndex) {
+                    document.insertString(document.getLineStartOffset(lineNumberStart), run.append('\n'));
+                } else {
+                    document.insertString(document.getLineEndOffset(lineNumberStart + insertionIndex - 1), run.insert(0, '\n'));
+                }
+                indexRunEnd = index;
+            }
+        } finally {
+            blocks.isSorting = false;
+        }
+    }
+
+    /**
+     * Sort given edited lines, find the index among the block's other (sorted) lines that each is to be inserted at:
+     * after all lines w/ an equal or lower key. Sort keys are prepared once per edited line, and once per sorted line
+     * that is probed by the binary search.
+     *
+     * @param  linesSorted  Other lines of the block, sorted
+     * @param  linesEdited  Edited lines, are sorted in place
+     * @param  comparator
+     * @return int[]        Insertion index of each of the (sorted) edited lines, ascending
+     */
+    static int[] getInsertionIndices(List<String> linesSorted, List<String> linesEdited, final AlphanumComparator comparator) {
+        final String[] keysEdited = new String[linesEdited.size()];
+        Integer[] order           = new Integer[linesEdited.size()];
+        for (int index = 0; index < keysEdited.length; index++) {
+            keysEdited[index] = comparator.getSortKey(linesEdited.get(index));
+            order[index]      = index;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer index1, Integer index2) {
+                return comparator.compareKeys(keysEdited[index1], keysEdited[index2]);
+            }
+        });
+
+        List<String> linesEditedUnsorted = new ArrayList<String>(linesEdited);
+        Map<Integer, String> keysSorted  = new HashMap<Integer, String>();
+        int[] insertionIndices = new int[order.length];
+
+        // Edited lines are processed in sorted order: each is inserted at or after the index of the preceding one
+        int low = 0;
+        for (int index = 0; index < order.length; index++) {
+            String key = keysEdited[order[index]];
+            linesEdited.set(index, linesEditedUnsorted.get(order[index]));
+
+            int high = linesSorted.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                String keyMiddle = keysSorted.get(middle);
+                if (null == keyMiddle) {
+                    keyMiddle = comparator.getSortKey(linesSorted.get(middle));
+                    keysSorted.put(middle, keyMiddle);
+                }
+                if (comparator.compareKeys(keyMiddle, key) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            insertionIndices[index] = low;
+        }
+
+        return insertionIndices;
+    }
+
+    /**
+     * @return boolean  Were lines of the block edited since it was last sorted?
+     */
+    public boolean hasEditedLines() {
+        for (RangeMarker dirtyMarker : dirtyMarkers) {
+            if (dirtyMarker.isValid()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Track the lines containing the given range as edited (unless already tracked, ex: when typing within the same line)
+     *
+     * @param document
+     * @param offsetStart
+     * @param offsetEnd
+     */
+    private void addEditedRange(Document document, int offsetStart, int offsetEnd) {
+        if (!dirtyMarkers.isEmpty()) {
+            RangeMarker lastDirtyMarker = dirtyMarkers.get(dirtyMarkers.size() - 1);
+            if (lastDirtyMarker.isValid() && offsetStart >= lastDirtyMarker.getStartOffset() && offsetEnd <= lastDirtyMarker.getEndOffset()) {
+                return;
+            }
+        }
+
+        RangeMarker dirtyMarker = document.createRangeMarker(
+                document.getLineStartOffset(document.getLineNumber(offsetStart)),
+                document.getLineEndOffset(document.getLineNumber(offsetEnd)));
+        dirtyMarker.setGreedyToRight(true);
+        dirtyMarkers.add(dirtyMarker);
+    }
+
+    private void disposeDirtyMarkers() {
+        for (RangeMarker dirtyMarker : dirtyMarkers) {
+            dirtyMarker.dispose();
+        }
+        dirtyMarkers.clear();
+    }
+
+    /**
+     * Replace given lines of the document by given lines, w/o tracking the change as edit
+     */
+    private static void replaceLines(Blocks blocks, Document document, int lineNumberStart, int lineNumberEnd, List<String> lines) {
+        int offsetStart = document.getLineStartOffset(lineNumberStart);
+        int offsetEnd   = document.getLineEndOffset(lineNumberEnd) + document.getLineSeparatorLength(lineNumberEnd);
+
+        StringBuilder text = UtilsTextual.joinLines(lines);
+        if (document.getLineSeparatorLength(lineNumberEnd) == 0) {
+            // Last line of the document: w/o trailing newline (as added by extractLines)
+            text.setLength(text.length() - 1);
+        }
+
+        blocks.isSorting = true;
+        try {
+            LinesDiff.replaceString(document, offsetStart, offsetEnd, text);
+        } finally {
+            blocks.isSorting = false;
+        }
+    }
+}
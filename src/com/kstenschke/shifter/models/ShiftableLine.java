@@ -17,6 +17,7 @@ package com.kstenschke.shifter.models;
 
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.models.shiftableTypes.JsDoc;
 import com.kstenschke.shifter.models.shiftableTypes.PhpDocParam;
 import com.kstenschke.shifter.models.shiftableTypes.HtmlEncodable;
@@ -60,9 +61,10 @@ public class ShiftableLine {
      * @return String       Next upper/lower word
      */
     private String getShifted(boolean isUp, Editor editor, @Nullable final Integer moreCount) {
+        Project project = null == editor ? null : editor.getProject();
         if (UtilsFile.isPhpFile(filename) && PhpDocParam.isPhpDocParamLine(line) && !PhpDocParam.containsDataType(this.line) && PhpDocParam.containsVariableName(this.line)) {
             // Caret-line is a PHP doc @param w/o data type: guess and insert one by the variable name
-            String shiftedLine = PhpDocParam.getShifted(line);
+            String shiftedLine = PhpDocParam.getShifted(line, project);
             if (!shiftedLine.equals(line)) {
                 return shiftedLine;
             }
@@ -70,7 +72,7 @@ public class ShiftableLine {
 
         if (this.filename.endsWith(".js") && JsDoc.isAtParamLine(line)
             && !JsDoc.containsCompounds(line) && !JsDoc.containsDataType(line, "", true)) {
-            String shiftedLine = JsDoc.correctAtParamLine(line);
+            String shiftedLine = JsDoc.correctAtParamLine(line, project);
             if (!shiftedLine.equals(line)) {
                 return shiftedLine;
             }
@@ -15,23 +15,43 @@
  */
 package com.kstenschke.shifter.models;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.command.CommandProcessor;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.editor.SelectionModel;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.util.DocumentUtil;
+import com.kstenschke.shifter.ShifterPreferences;
 import com.kstenschke.shifter.models.shiftableTypes.*;
 import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.ExternalLinesSorter;
+import com.kstenschke.shifter.utils.LinesDiff;
+import com.kstenschke.shifter.utils.LinesFieldSorter;
+import com.kstenschke.shifter.utils.UtilsArray;
 import com.kstenschke.shifter.utils.UtilsEnvironment;
 import com.kstenschke.shifter.utils.UtilsFile;
 import com.kstenschke.shifter.utils.UtilsTextual;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
 
 // Shiftable (non-block) selection
 public class ShiftableSelection {
 
+    // Maximum amount of characters of externally sorted lines replaced at once
+    private static final int LENGTH_CHUNK_REPLACE = 64 * 1024;
+
     /**
      * @param editor
      * @param caretOffset
@@ -71,7 +91,7 @@ public class ShiftableSelection {
         boolean isWrappedInParenthesis = Parenthesis.isWrappedInParenthesis(selectedText);
 
         ShiftableTypesManager shiftingShiftableTypesManager = new ShiftableTypesManager();
-        int wordType = shiftingShiftableTypesManager.getWordType(selectedText, editorText, offsetStart, filename);
+        int wordType = shiftingShiftableTypesManager.getWordType(selectedText, DocumentAnalysis.getInstance(document), offsetStart, filename);
         boolean isPhpVariableOrArray = wordType == ShiftableTypesManager.TYPE_PHP_VARIABLE_OR_ARRAY;
 
         if (isWrappedInParenthesis) {
@@ -92,12 +112,8 @@ public class ShiftableSelection {
 
         if (UtilsFile.isCssFile(filename) && isMultiLine) {
             // CSS: Sort attributes per selector alphabetically
-            String shifted = Css.getShifted(selectedText);
-            if (null != shifted) {
-                document.replaceString(offsetStart, offsetEnd, shifted);
-                UtilsEnvironment.reformatSubString(editor, project, offsetStart, offsetStart + shifted.length());
-                return;
-            }
+            sortCssInDocument(editor, project, document, offsetStart, offsetEnd, selectedText);
+            return;
         }
 
         int lineNumberSelStart = document.getLineNumber(offsetStart);
@@ -113,7 +129,7 @@ public class ShiftableSelection {
             return;
         }
         if (isJsVarsDeclarations) {
-            document.replaceString(offsetStart, offsetEnd, com.kstenschke.shifter.models.shiftableTypes.JsVariablesDeclarations.getShifted(selectedText));
+            LinesDiff.replaceString(document, offsetStart, offsetEnd, com.kstenschke.shifter.models.shiftableTypes.JsVariablesDeclarations.getShifted(selectedText, filename));
             return;
         }
         if (!isPhpVariableOrArray && wordType == ShiftableTypesManager.TYPE_SIZZLE_SELECTOR) {
@@ -141,12 +157,12 @@ public class ShiftableSelection {
         if (!isPhpVariableOrArray) {
             if (com.kstenschke.shifter.models.shiftableTypes.SeparatedList.isSeparatedList(selectedText,",")) {
                 // Comma-separated list: sort / ask whether to sort or toggle quotes
-                new ShiftableSelectionWithPopup(project, document, offsetStart, offsetEnd).sortListOrSwapQuotesInDocument(",(\\s)*", ", ", isUp);
+                new ShiftableSelectionWithPopup(project, document, offsetStart, offsetEnd).sortListOrSwapQuotesInDocument(",", isUp);
                 return;
             }
             if (com.kstenschke.shifter.models.shiftableTypes.SeparatedList.isSeparatedList(selectedText,"|")) {
                 // Pipe-separated list
-                new ShiftableSelectionWithPopup(project, document, offsetStart, offsetEnd).sortListOrSwapQuotesInDocument("\\|(\\s)*", "|", isUp);
+                new ShiftableSelectionWithPopup(project, document, offsetStart, offsetEnd).sortListOrSwapQuotesInDocument("|", isUp);
                 return;
             }
             if (containsShiftableQuotes) {
@@ -237,29 +253,406 @@ public class ShiftableSelection {
     /**
      * Sort lines in document alphabetically ascending / descending
      *
+     * @param project
+     * @param document
      * @param reverse
      * @param lineNumberSelStart
      * @param lineNumberSelEnd
      */
-    protected static void sortLinesInDocument(Document document, boolean reverse, int lineNumberSelStart, int lineNumberSelEnd) {
-        List<String> lines       = UtilsTextual.extractLines(document, lineNumberSelStart, lineNumberSelEnd);
+    protected static void sortLinesInDocument(@Nullable Project project, Document document, boolean reverse, int lineNumberSelStart, int lineNumberSelEnd) {
+        int selectionLength = document.getLineEndOffset(lineNumberSelEnd) - document.getLineStartOffset(lineNumberSelStart);
+        if (null != project && selectionLength >= ShifterPreferences.getExternalSortMinSize()) {
+            sortLinesExternally(project, document, reverse, lineNumberSelStart, lineNumberSelEnd);
+            return;
+        }
+
+        List<String> lines = UtilsTextual.extractLines(document, lineNumberSelStart, lineNumberSelEnd);
+
+        if (null != project && lines.size() >= ShifterPreferences.getParallelSortMinLines()) {
+            sortLinesInBackground(project, document, reverse, lineNumberSelStart, lineNumberSelEnd, lines);
+            return;
+        }
+
         List<String> linesSorted = UtilsTextual.sortLinesNatural(lines, reverse);
 
-        String linesString = UtilsTextual.joinLines(linesSorted).toString();
+        if (isOfferingReduceDuplicateLines(project, document, lineNumberSelStart, lineNumberSelEnd, linesSorted)) {
+            // Do not ask from within the running write action: replace lines afterwards
+            replaceLinesLater(project, document, lineNumberSelStart, lineNumberSelEnd, linesSorted);
+            return;
+        }
+
+        replaceLines(document, lineNumberSelStart, lineNumberSelEnd, linesSorted);
+    }
+
+    /**
+     * Ask for the field to sort the given selected lines by, then sort them (ex: via the "Sort Lines by Field" action).
+     * To be called from the event dispatch thread, outside of any write action.
+     *
+     * @param project
+     * @param document
+     * @param offsetStart
+     * @param offsetEnd
+     */
+    public static void sortSelectedLinesByField(Project project, Document document, int offsetStart, int offsetEnd) {
+        new ShiftableSelectionWithPopup(project, document, offsetStart, offsetEnd).sortLinesByField();
+    }
+
+    /**
+     * @param document
+     * @param reverse
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     * @param sorter                Sorter by the field chosen by the user
+     */
+    protected static void sortLinesByFieldInDocument(Document document, boolean reverse, int lineNumberSelStart, int lineNumberSelEnd, LinesFieldSorter sorter) {
+        List<String> lines = UtilsTextual.extractLines(document, lineNumberSelStart, lineNumberSelEnd);
+
+        replaceLines(document, lineNumberSelStart, lineNumberSelEnd, sorter.sort(lines, reverse, ShifterPreferences.getSortingMode()));
+    }
 
-        if (UtilsTextual.hasDuplicateLines(linesString) && JOptionPane.showConfirmDialog(
+    /**
+     * Sort given (very many) lines in parallel, in a background task showing progress.
+     * Only replacing the lines in the document is done in a write action, afterwards.
+     *
+     * @param project
+     * @param document
+     * @param reverse
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     * @param lines                 Lines to be sorted, as extracted from the document
+     */
+    private static void sortLinesInBackground(final Project project, final Document document, final boolean reverse, final int lineNumberSelStart, final int lineNumberSelEnd, final List<String> lines) {
+        final long modificationStamp = document.getModificationStamp();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, StaticTexts.PROGRESS_TITLE_SORTING_LINES, false) {
+            private List<String> linesSorted;
+
+            public void run(@NotNull ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                linesSorted = UtilsTextual.sortLinesNatural(lines, reverse, true);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (isModifiedMeanwhile(project, document, modificationStamp)) {
+                    return;
+                }
+
+                confirmReduceDuplicatesAndReplaceLines(project, document, lineNumberSelStart, lineNumberSelEnd, linesSorted,
+                        isOfferingReduceDuplicateLines(project, document, lineNumberSelStart, lineNumberSelEnd, linesSorted));
+            }
+        });
+    }
+
+    /**
+     * Sort lines of a huge selection w/ bounded heap use: in a background task, the lines are read from a snapshot of
+     * the document (w/o holding the read lock), sorted runs of lines are spilled into temporary files and merged into
+     * another temporary file. The document is changed only after the merge succeeded: in a write action, the lines are
+     * overwritten by the merged text, read back in chunks of limited length.
+     * Delimiter maintenance and reducing duplicate lines are not done in this mode.
+     *
+     * @param project
+     * @param document
+     * @param reverse
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     */
+    private static void sortLinesExternally(final Project project, final Document document, final boolean reverse, final int lineNumberSelStart, final int lineNumberSelEnd) {
+        final long modificationStamp = document.getModificationStamp();
+        final int offsetLinesStart   = document.getLineStartOffset(lineNumberSelStart);
+        final int offsetLinesEnd     = document.getLineEndOffset(lineNumberSelEnd) + document.getLineSeparatorLength(lineNumberSelEnd);
+        // The merged text has a separator after every line: one char more than the lines, if the last one has none
+        final int lengthMerged       = offsetLinesEnd - offsetLinesStart + (0 == document.getLineSeparatorLength(lineNumberSelEnd) ? 1 : 0);
+        final CharSequence text      = document.getImmutableCharSequence();
+        final int sortingMode        = ShifterPreferences.getSortingMode();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, StaticTexts.PROGRESS_TITLE_SORTING_LINES, false) {
+            private IOException exception = null;
+            private File mergedFile = null;
+
+            public void run(@NotNull final ProgressIndicator indicator) {
+                ExternalLinesSorter sorter = new ExternalLinesSorter(reverse, ExternalLinesSorter.DEFAULT_RUN_LENGTH, sortingMode);
+                try {
+                    int length          = offsetLinesEnd - offsetLinesStart;
+                    int offsetLineStart = offsetLinesStart;
+                    while (offsetLineStart < offsetLinesEnd) {
+                        int offsetLineEnd = offsetLineStart;
+                        while (offsetLineEnd < offsetLinesEnd && '\n' != text.charAt(offsetLineEnd)) {
+                            offsetLineEnd++;
+                        }
+                        sorter.add(text.subSequence(offsetLineStart, offsetLineEnd).toString() + "\n");
+                        indicator.setFraction((double) (offsetLineStart - offsetLinesStart) / length);
+                        offsetLineStart = offsetLineEnd + 1;
+                    }
+
+                    indicator.setIndeterminate(true);
+                    mergedFile = sorter.mergeToFile();
+                    if (mergedFile.length() != 2L * lengthMerged) {
+                        throw new IOException(mergedFile.getPath());
+                    }
+                } catch (IOException e) {
+                    exception = e;
+                    sorter.deleteRunFiles();
+                    deleteMergedFile();
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (null != exception) {
+                    UtilsEnvironment.notify(project, StaticTexts.PROGRESS_TITLE_SORTING_LINES, StaticTexts.MESSAGE_SORT_FAILED + exception.getMessage());
+                    return;
+                }
+                if (isModifiedMeanwhile(project, document, modificationStamp)) {
+                    deleteMergedFile();
+                    return;
+                }
+
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    public void run() {
+                        CommandProcessor.getInstance().executeCommand(project, new Runnable() {
+                                    public void run() {
+                                        try {
+                                            replaceLinesByMergedFile(document, offsetLinesStart, offsetLinesEnd, mergedFile);
+                                        } catch (IOException e) {
+                                            UtilsEnvironment.notify(project, StaticTexts.PROGRESS_TITLE_SORTING_LINES, StaticTexts.MESSAGE_SORT_FAILED + e.getMessage());
+                                        } finally {
+                                            deleteMergedFile();
+                                        }
+                                    }
+                                },
+                                StaticTexts.PROGRESS_TITLE_SORTING_LINES, null);
+                    }
+                });
+            }
+
+            private void deleteMergedFile() {
+                if (null != mergedFile) {
+                    //noinspection ResultOfMethodCallIgnored
+                    mergedFile.delete();
+                    mergedFile = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Overwrite the given range of the document by the (equally long, after cutting the trailing separator of the last
+     * line if there's none) sorted text of the given merged file, chunk by chunk. Chunks equal to the replaced text leave
+     * the document unchanged there.
+     *
+     * @param  document
+     * @param  offsetLinesStart
+     * @param  offsetLinesEnd
+     * @param  mergedFile
+     * @throws IOException
+     */
+    private static void replaceLinesByMergedFile(final Document document, final int offsetLinesStart, final int offsetLinesEnd, File mergedFile) throws IOException {
+        final Reader in = ExternalLinesSorter.openMergedFile(mergedFile);
+        final IOException[] exception = {null};
+        try {
+            DocumentUtil.executeInBulk(document, true, new Runnable() {
+                public void run() {
+                    char[] chunk = new char[LENGTH_CHUNK_REPLACE];
+                    int offset   = offsetLinesStart;
+                    try {
+                        while (offset < offsetLinesEnd) {
+                            int lengthChunk = in.read(chunk, 0, Math.min(chunk.length, offsetLinesEnd - offset));
+                            if (lengthChunk < 0) {
+                                return;
+                            }
+                            document.replaceString(offset, offset + lengthChunk, new String(chunk, 0, lengthChunk));
+                            offset += lengthChunk;
+                        }
+                    } catch (IOException e) {
+                        exception[0] = e;
+                    }
+                }
+            });
+        } finally {
+            in.close();
+        }
+        if (null != exception[0]) {
+            throw exception[0];
+        }
+    }
+
+    /**
+     * Sort attributes per selector of the given CSS alphabetically. Stylesheets exceeding the size budget are sorted in
+     * a background task showing progress, the document is changed afterwards in a write action.
+     *
+     * @param editor
+     * @param project
+     * @param document
+     * @param offsetStart
+     * @param offsetEnd
+     * @param selectedText
+     */
+    private static void sortCssInDocument(final Editor editor, @Nullable final Project project, final Document document, final int offsetStart, final int offsetEnd, final String selectedText) {
+        if (null == project || SizeBudget.isWithinBudget(selectedText.length())) {
+            List<TextRange> changedRanges = new ArrayList<TextRange>();
+            replaceSortedCss(editor, project, document, offsetStart, offsetEnd, Css.getShifted(selectedText, changedRanges), changedRanges);
+            return;
+        }
+
+        final long modificationStamp = document.getModificationStamp();
+
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, StaticTexts.PROGRESS_TITLE_SORTING_CSS, false) {
+            private final List<TextRange> changedRanges = new ArrayList<TextRange>();
+            private String shifted;
+
+            public void run(@NotNull final ProgressIndicator indicator) {
+                indicator.setIndeterminate(true);
+                shifted = Css.getShifted(selectedText, changedRanges);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (isModifiedMeanwhile(project, document, modificationStamp)) {
+                    return;
+                }
+
+                ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                    public void run() {
+                        CommandProcessor.getInstance().executeCommand(project, new Runnable() {
+                                    public void run() {
+                                        replaceSortedCss(editor, project, document, offsetStart, offsetEnd, shifted, changedRanges);
+                                    }
+                                },
+                                StaticTexts.PROGRESS_TITLE_SORTING_CSS, null);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Replace selected CSS by the sorted one, reformat only the blocks that changed
+     *
+     * @param editor
+     * @param project
+     * @param document
+     * @param offsetStart
+     * @param offsetEnd
+     * @param shifted
+     * @param changedRanges     Ranges of changed blocks, within the sorted CSS
+     */
+    private static void replaceSortedCss(Editor editor, @Nullable Project project, Document document, int offsetStart, int offsetEnd, String shifted, List<TextRange> changedRanges) {
+        LinesDiff.replaceString(document, offsetStart, offsetEnd, shifted);
+        if (!changedRanges.isEmpty()) {
+            for (int index = 0; index < changedRanges.size(); index++) {
+                changedRanges.set(index, changedRanges.get(index).shiftRight(offsetStart));
+            }
+            UtilsEnvironment.reformatSubStrings(editor, project, changedRanges);
+        }
+    }
+
+    /**
+     * @param  project
+     * @param  document
+     * @param  lineNumberSelStart
+     * @param  lineNumberSelEnd
+     * @param  linesSorted
+     * @return boolean  Do the sorted lines contain duplicates, and are they few enough to offer reducing them?
+     */
+    private static boolean isOfferingReduceDuplicateLines(@Nullable Project project, Document document, int lineNumberSelStart, int lineNumberSelEnd, List<String> linesSorted) {
+        int selectionLength = document.getLineEndOffset(lineNumberSelEnd) - document.getLineStartOffset(lineNumberSelStart);
+
+        // Detecting duplicates is a single hashing pass over the lines
+        if (!SizeBudget.isWithinBudget(selectionLength)) {
+            // Large selection: do not block w/ checking for and asking about duplicates
+            SizeBudget.notifyBudgetExceeded(project, StaticTexts.MESSAGE_SORTED_WITHOUT_REDUCING_DUPLICATES);
+            return false;
+        }
+
+        return UtilsArray.hasDuplicateItems(linesSorted);
+    }
+
+    /**
+     * @param  project
+     * @param  document
+     * @param  modificationStamp    Modification stamp of the document when the lines were extracted
+     * @return boolean              Was the document edited meanwhile? (sorted lines would overwrite the changes)
+     */
+    private static boolean isModifiedMeanwhile(@Nullable Project project, Document document, long modificationStamp) {
+        if (document.getModificationStamp() == modificationStamp) {
+            return false;
+        }
+        UtilsEnvironment.notify(project, StaticTexts.PROGRESS_TITLE_SORTING_LINES, StaticTexts.MESSAGE_SORT_DISCARDED_DOCUMENT_MODIFIED);
+
+        return true;
+    }
+
+    /**
+     * Replace lines in document by given sorted lines, after the currently running write action: asking whether to
+     * reduce duplicate lines from within it would block all other read and write access meanwhile.
+     *
+     * @param project
+     * @param document
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     * @param linesSorted
+     */
+    private static void replaceLinesLater(@Nullable final Project project, final Document document, final int lineNumberSelStart, final int lineNumberSelEnd, final List<String> linesSorted) {
+        final long modificationStamp = document.getModificationStamp();
+
+        ApplicationManager.getApplication().invokeLater(new Runnable() {
+            public void run() {
+                if (!isModifiedMeanwhile(project, document, modificationStamp)) {
+                    confirmReduceDuplicatesAndReplaceLines(project, document, lineNumberSelStart, lineNumberSelEnd, linesSorted, true);
+                }
+            }
+        });
+    }
+
+    /**
+     * Optionally ask (once) whether to reduce duplicate lines, then replace lines in document in a write action.
+     * To be called from the event dispatch thread, outside of any write action.
+     *
+     * @param project
+     * @param document
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     * @param linesSorted
+     * @param isOfferingReduceDuplicates
+     */
+    private static void confirmReduceDuplicatesAndReplaceLines(@Nullable final Project project, final Document document, final int lineNumberSelStart, final int lineNumberSelEnd, List<String> linesSorted, boolean isOfferingReduceDuplicates) {
+        if (isOfferingReduceDuplicates && JOptionPane.showConfirmDialog(
                 null,
                 StaticTexts.MESSAGE_REDUCE_DUPLICATE_LINES,
                 StaticTexts.TITLE_REDUCE_DUPLICATE_LINES,
                 JOptionPane.OK_CANCEL_OPTION
         ) == JOptionPane.OK_OPTION)
         {
-            linesString = UtilsTextual.reduceDuplicateLines(linesString);
+            linesSorted = UtilsArray.reduceDuplicateItems(linesSorted);
         }
 
+        final List<String> lines = linesSorted;
+        ApplicationManager.getApplication().runWriteAction(new Runnable() {
+            public void run() {
+                CommandProcessor.getInstance().executeCommand(project, new Runnable() {
+                            public void run() {
+                                replaceLines(document, lineNumberSelStart, lineNumberSelEnd, lines);
+                            }
+                        },
+                        StaticTexts.PROGRESS_TITLE_SORTING_LINES, null);
+            }
+        });
+    }
+
+    /**
+     * Replace lines in document by given (sorted) lines
+     *
+     * @param document
+     * @param lineNumberSelStart
+     * @param lineNumberSelEnd
+     * @param lines
+     */
+    private static void replaceLines(Document document, int lineNumberSelStart, int lineNumberSelEnd, List<String> lines) {
         int offsetLineStart = document.getLineStartOffset(lineNumberSelStart);
         int offsetLineEnd   = document.getLineEndOffset(lineNumberSelEnd) + document.getLineSeparatorLength(lineNumberSelEnd);
 
-        document.replaceString(offsetLineStart, offsetLineEnd, linesString);
+        // Replace only lines that actually changed
+        LinesDiff.replaceString(document, offsetLineStart, offsetLineEnd, UtilsTextual.joinLines(lines));
     }
-}
\ No newline at end of file
+}
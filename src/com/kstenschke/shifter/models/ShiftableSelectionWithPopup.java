@@ -24,9 +24,12 @@ import com.intellij.openapi.ui.popup.PopupChooserBuilder;
 import com.intellij.ui.components.JBList;
 import com.kstenschke.shifter.models.shiftableTypes.*;
 import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.LinesFieldSorter;
+import com.kstenschke.shifter.utils.UtilsEnvironment;
 import com.kstenschke.shifter.utils.UtilsTextual;
 import org.jetbrains.annotations.Nullable;
 
+import javax.swing.*;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,6 +48,13 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
 
     private final boolean containsShiftableQuotes;
 
+    // Separator of columns contained in all selected lines, if any
+    @Nullable
+    private String fieldSeparator = null;
+
+    // Amount of lines from the start of the selection that are checked for a common field separator
+    private static final int AMOUNT_LINES_DETECT_FIELD_SEPARATOR = 100;
+
     /**
      * Constructor
      *
@@ -63,7 +73,7 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         this.lineNumberSelStart = document.getLineNumber(offsetStart);
         this.lineNumberSelEnd   = document.getLineNumber(offsetEnd);
 
-        this.selectedText            = UtilsTextual.getSubString(document.getText(), offsetStart, offsetEnd);
+        this.selectedText            = UtilsTextual.getSubString(document.getCharsSequence(), offsetStart, offsetEnd);
         this.containsShiftableQuotes = QuotedString.containsShiftableQuotes(selectedText);
     }
 
@@ -80,27 +90,25 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         shiftOptions.add(StaticTexts.SHIFT_OPTION_CONCATENATION_ITEMS_SWAP_ORDER);
         shiftOptions.add(StaticTexts.SHIFT_OPTION_QUOTES_SWAP);
 
-        shiftSelectionByPopupInDocument(shiftOptions, isUp, phpConcatenation, null, null);
+        shiftSelectionByPopupInDocument(shiftOptions, isUp, phpConcatenation, null);
     }
 
     /**
-     * @param delimiterSplitPattern
-     * @param delimiterGlue
+     * @param delimiter
      * @param isUp
      */
-    public void sortListOrSwapQuotesInDocument(final String delimiterSplitPattern, final String delimiterGlue, final boolean isUp) {
+    public void sortListOrSwapQuotesInDocument(final String delimiter, final boolean isUp) {
         if (!containsShiftableQuotes) {
-            document.replaceString(offsetStart, offsetEnd, SeparatedList.sortSeparatedList(selectedText, delimiterSplitPattern, delimiterGlue, isUp));
+            document.replaceString(offsetStart, offsetEnd, SeparatedList.sortSeparatedList(selectedText, delimiter, isUp));
             return;
         }
 
         List<String> shiftOptions = new ArrayList<String>();
 
-        String items[] = selectedText.split(delimiterSplitPattern);
-        shiftOptions.add(items.length == 2 ? StaticTexts.SHIFT_OPTION_LIST_ITEMS_SWAP : StaticTexts.SHIFT_OPTION_LIST_ITEMS_SORT);
+        shiftOptions.add(SeparatedList.countItems(selectedText, delimiter) == 2 ? StaticTexts.SHIFT_OPTION_LIST_ITEMS_SWAP : StaticTexts.SHIFT_OPTION_LIST_ITEMS_SORT);
         shiftOptions.add(StaticTexts.SHIFT_OPTION_QUOTES_SWAP);
 
-        shiftSelectionByPopupInDocument(shiftOptions, isUp,null, delimiterSplitPattern, delimiterGlue);
+        shiftSelectionByPopupInDocument(shiftOptions, isUp,null, delimiter);
     }
 
     public void swapParenthesisOrConvertPphpArray() {
@@ -108,23 +116,30 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         shiftOptions.add(StaticTexts.SHIFT_OPTION_SWAP_PARENTHESIS);
         shiftOptions.add(StaticTexts.SHIFT_OPTION_CONVERT_PHP_ARRAY_TO_LONG_SYNTAX);
 
-        shiftSelectionByPopupInDocument(shiftOptions, false,null, null, null);
+        shiftSelectionByPopupInDocument(shiftOptions, false,null, null);
     }
 
     /**
      * @param isUp
      */
     public void sortLinesOrSwapQuotesInDocument(final boolean isUp) {
-        if (!containsShiftableQuotes) {
-            ShiftableSelection.sortLinesInDocument(document, !isUp, lineNumberSelStart, lineNumberSelEnd);
+        fieldSeparator = detectFieldSeparator();
+
+        if (!containsShiftableQuotes && null == fieldSeparator) {
+            ShiftableSelection.sortLinesInDocument(project, document, !isUp, lineNumberSelStart, lineNumberSelEnd);
             return;
         }
 
         List<String> shiftOptions = new ArrayList<String>();
         shiftOptions.add(StaticTexts.SHIFT_OPTION_LINES_SORT);
-        shiftOptions.add(StaticTexts.SHIFT_OPTION_QUOTES_SWAP);
+        if (null != fieldSeparator) {
+            shiftOptions.add(StaticTexts.SHIFT_OPTION_LINES_SORT_BY_FIELD);
+        }
+        if (containsShiftableQuotes) {
+            shiftOptions.add(StaticTexts.SHIFT_OPTION_QUOTES_SWAP);
+        }
 
-        shiftSelectionByPopupInDocument(shiftOptions, isUp,null, null, null);
+        shiftSelectionByPopupInDocument(shiftOptions, isUp,null, null);
     }
 
     public void shiftCamelCaseOrSwapWords() {
@@ -132,7 +147,7 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         shiftOptions.add(StaticTexts.SHIFT_OPTION_CAMEL_CASE_TO_PATH);
         shiftOptions.add(StaticTexts.SHIFT_OPTION_CAMEL_WORDS_SWAP_ORDER);
 
-        shiftSelectionByPopupInDocument(shiftOptions, false,null, null, null);
+        shiftSelectionByPopupInDocument(shiftOptions, false,null, null);
     }
 
     public void shiftMinusSeparatedPathOrSwapWords() {
@@ -140,20 +155,19 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         shiftOptions.add(StaticTexts.SHIFT_OPTION_PATH_TO_CAMEL_CASE);
         shiftOptions.add(StaticTexts.SHIFT_OPTION_PATH_PAIR_SWAP_ORDER);
 
-        shiftSelectionByPopupInDocument(shiftOptions, false,null, null, null);
+        shiftSelectionByPopupInDocument(shiftOptions, false,null, null);
     }
 
     /**
      * @param shiftOptions
      * @param isUp
      * @param phpConcatenation
-     * @param delimiterSplitPattern
-     * @param delimiterGlue
+     * @param delimiter
      */
     private void shiftSelectionByPopupInDocument(
             List<String> shiftOptions, final boolean isUp,
             @Nullable final PhpConcatenation phpConcatenation,
-            @Nullable final String delimiterSplitPattern, @Nullable final String delimiterGlue
+            @Nullable final String delimiter
     ) {
         final Object[] options = shiftOptions.toArray(new String[shiftOptions.size()]);
         final JBList modes = new JBList(options);
@@ -161,15 +175,22 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         PopupChooserBuilder popup = JBPopupFactory.getInstance().createListPopupBuilder(modes);
         popup.setTitle(StaticTexts.POPUP_TITLE_SHIFT).setItemChoosenCallback(new Runnable() {
             public void run() {
+                final String mode = modes.getSelectedValue().toString();
+                if (mode.equals(StaticTexts.SHIFT_OPTION_LINES_SORT_BY_FIELD)) {
+                    // Ask for the field before (not within) the write action
+                    sortLinesByFieldInDocument(isUp);
+                    return;
+                }
+
                 ApplicationManager.getApplication().runWriteAction(new Runnable() {
                     public void run() {
                         // Callback when item chosen
                         CommandProcessor.getInstance().executeCommand(project, new Runnable() {
                                     public void run() {
                                         shiftSelectionByModeInDocument(
-                                                modes.getSelectedValue().toString(),
+                                                mode,
                                                 isUp,
-                                                phpConcatenation, delimiterSplitPattern, delimiterGlue);
+                                                phpConcatenation, delimiter);
                                     }
                                 },
                                 null, null);
@@ -179,17 +200,67 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
         }).setMovable(true).createPopup().showCenteredInCurrentWindow(project);
     }
 
+    /**
+     * Sort selected lines ascending by a field, for any selection (ex: "key: value" lines, two-column CSV),
+     * also when no table separator is detected
+     */
+    public void sortLinesByField() {
+        fieldSeparator = detectFieldSeparator();
+        sortLinesByFieldInDocument(true);
+    }
+
+    /**
+     * @return String   Separator of table-like lines, detected from the start of the selection, or null
+     */
+    @Nullable
+    private String detectFieldSeparator() {
+        return LinesFieldSorter.detectFieldSeparator(UtilsTextual.extractLines(
+                document, lineNumberSelStart, Math.min(lineNumberSelEnd, lineNumberSelStart + AMOUNT_LINES_DETECT_FIELD_SEPARATOR - 1)));
+    }
+
+    /**
+     * Ask for the field to sort by, then sort the selected lines by it
+     *
+     * @param isUp
+     */
+    private void sortLinesByFieldInDocument(final boolean isUp) {
+        String expression = JOptionPane.showInputDialog(
+                null,
+                String.format(StaticTexts.MESSAGE_SORT_LINES_BY_FIELD, null == fieldSeparator ? "whitespace" : ("\t".equals(fieldSeparator) ? "tab" : fieldSeparator)),
+                StaticTexts.TITLE_SORT_LINES_BY_FIELD,
+                JOptionPane.QUESTION_MESSAGE);
+        if (null == expression) {
+            return;
+        }
+
+        final LinesFieldSorter sorter = LinesFieldSorter.fromExpression(expression, fieldSeparator);
+        if (null == sorter) {
+            UtilsEnvironment.notify(project, StaticTexts.TITLE_SORT_LINES_BY_FIELD, StaticTexts.MESSAGE_INVALID_FIELD_EXPRESSION + expression);
+            return;
+        }
+
+        ApplicationManager.getApplication().runWriteAction(new Runnable() {
+            public void run() {
+                CommandProcessor.getInstance().executeCommand(project, new Runnable() {
+                            public void run() {
+                                ShiftableSelection.sortLinesByFieldInDocument(document, !isUp, lineNumberSelStart, lineNumberSelEnd, sorter);
+                            }
+                        },
+                        StaticTexts.TITLE_SORT_LINES_BY_FIELD, null);
+            }
+        });
+    }
+
     /**
      * @param mode
      * @param isUp
      * @param phpConcatenation
-     * @param delimiterSplitPattern
-     * @param delimiterGlue
+     * @param delimiter
      */
     private void shiftSelectionByModeInDocument(
             String mode, boolean isUp,
             @Nullable PhpConcatenation phpConcatenation,
-            @Nullable String delimiterSplitPattern, @Nullable String delimiterGlue
+            @Nullable String delimiter
     ) {
         if (mode.equals(StaticTexts.SHIFT_OPTION_CONCATENATION_ITEMS_SWAP_ORDER)) {
             document.replaceString(offsetStart, offsetEnd, phpConcatenation.getShifted());
@@ -200,7 +271,7 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
             return;
         }
         if (mode.equals(StaticTexts.SHIFT_OPTION_LIST_ITEMS_SORT) || mode.equals(StaticTexts.SHIFT_OPTION_LIST_ITEMS_SWAP)) {
-            document.replaceString(offsetStart, offsetEnd, SeparatedList.sortSeparatedList(selectedText, delimiterSplitPattern, delimiterGlue, isUp));
+            document.replaceString(offsetStart, offsetEnd, SeparatedList.sortSeparatedList(selectedText, delimiter, isUp));
             return;
         }
         if (mode.equals(StaticTexts.SHIFT_OPTION_PATH_PAIR_SWAP_ORDER)) {
@@ -208,7 +279,7 @@ class ShiftableSelectionWithPopup extends ShiftableSelection {
             return;
         }
         if (mode.equals(StaticTexts.SHIFT_OPTION_LINES_SORT)) {
-            ShiftableSelection.sortLinesInDocument(document, !isUp, lineNumberSelStart, lineNumberSelEnd);
+            ShiftableSelection.sortLinesInDocument(project, document, !isUp, lineNumberSelStart, lineNumberSelEnd);
             return;
         }
         if (mode.equals(StaticTexts.SHIFT_OPTION_QUOTES_SWAP)) {
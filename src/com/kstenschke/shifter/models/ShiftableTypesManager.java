@@ -16,9 +16,9 @@
 package com.kstenschke.shifter.models;
 
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.models.shiftableTypes.*;
 import com.kstenschke.shifter.utils.UtilsFile;
-import com.kstenschke.shifter.utils.UtilsTextual;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -115,7 +115,7 @@ public class ShiftableTypesManager {
             return TYPE_PARENTHESIS;
         }
 
-        if (com.kstenschke.shifter.models.shiftableTypes.JsVariablesDeclarations.isJsVariables(word)) {
+        if (com.kstenschke.shifter.models.shiftableTypes.JsVariablesDeclarations.isJsVariables(word, filename)) {
             return TYPE_JS_VARIABLES_DECLARATIONS;
         }
         if (com.kstenschke.shifter.models.shiftableTypes.SizzleSelector.isSelector(word)) {
@@ -213,8 +213,16 @@ public class ShiftableTypesManager {
         return TYPE_UNKNOWN;
     }
 
-    public int getWordType(String word, CharSequence editorText, int caretOffset, String filename) {
-        String line = UtilsTextual.getLineAtOffset(editorText.toString(), caretOffset);
+    /**
+     * @param  word
+     * @param  documentAnalysis Analysis of the document containing the word
+     * @param  caretOffset
+     * @param  filename
+     * @return int
+     */
+    public int getWordType(String word, DocumentAnalysis documentAnalysis, int caretOffset, String filename) {
+        CharSequence editorText = documentAnalysis.getText();
+        String line             = documentAnalysis.getLineAtOffset(caretOffset);
 
         int editorTextLength = editorText.length();
         int offsetPostfixChar = caretOffset + word.length();
@@ -253,6 +261,9 @@ public class ShiftableTypesManager {
      * @return              The shifted word
      */
     public String getShiftedWord(String word, int idWordType, boolean isUp, CharSequence editorText, int caretOffset, Integer moreCount, String filename, @Nullable Editor editor) {
+        Project project = null == editor ? null : editor.getProject();
+        DocumentAnalysis documentAnalysis = getDocumentAnalysis(editorText, editor);
+
         switch (idWordType) {
             // String based word shiftableTypes
             case TYPE_ACCESSIBILITY:
@@ -273,11 +284,11 @@ public class ShiftableTypesManager {
             case TYPE_CSS_UNIT:
                 return this.typePixelValue.getShifted(word, isUp);
             case TYPE_PHP_VARIABLE_OR_ARRAY:
-                return this.typePhpVariableOrArray.getShifted(word, editorText, isUp, moreCount);
+                return this.typePhpVariableOrArray.getShifted(word, documentAnalysis, caretOffset, isUp, moreCount, project);
             case TYPE_TERNARY_EXPRESSION:
                 return com.kstenschke.shifter.models.shiftableTypes.TernaryExpression.getShifted(word);
             case TYPE_QUOTED_STRING:
-                return this.typeQuotedString.getShifted(word, editorText, isUp);
+                return this.typeQuotedString.getShifted(word, documentAnalysis, caretOffset, isUp, project);
             case TYPE_PARENTHESIS:
                 return Parenthesis.getShifted(word);
             case TYPE_OPERATOR_SIGN:
@@ -289,8 +300,7 @@ public class ShiftableTypesManager {
             case TYPE_MONO_CHARACTER_STRING:
                 return this.typeMonoCharacterString.getShifted(word, isUp);
             case TYPE_DOC_COMMENT_TAG:
-                String textAfterCaret   = editorText.toString().substring(caretOffset);
-                return this.typeTagInDocComment.getShifted(word, isUp, filename, textAfterCaret);
+                return this.typeTagInDocComment.getShifted(word, isUp, filename, editorText, caretOffset);
             case TYPE_DOC_COMMENT_DATATYPE:
                 return this.typeDataTypeInDocComment.getShifted(word, isUp, filename);
             case TYPE_MINUS_SEPARATED_PATH:
@@ -319,9 +329,20 @@ public class ShiftableTypesManager {
      * @return String
      */
     public String getShiftedWord(String word, boolean isUp, CharSequence editorText, int caretOffset, @Nullable Integer moreCount, String filename, Editor editor) {
-        String line    = UtilsTextual.getLineAtOffset(editorText.toString(), caretOffset);
+        String line    = getDocumentAnalysis(editorText, editor).getLineAtOffset(caretOffset);
         int idWordType = this.getWordType(word, "", "", false, line, filename);
 
         return this.getShiftedWord(word, idWordType, isUp, editorText, caretOffset, moreCount, filename, editor);
     }
+
+    /**
+     * @param  editorText
+     * @param  editor
+     * @return DocumentAnalysis     Cached analysis of the editor's document, or an analysis of the given text if there's no editor
+     */
+    private static DocumentAnalysis getDocumentAnalysis(CharSequence editorText, @Nullable Editor editor) {
+        return null == editor
+                ? new DocumentAnalysis(editorText)
+                : DocumentAnalysis.getInstance(editor.getDocument());
+    }
 }
\ No newline at end of file
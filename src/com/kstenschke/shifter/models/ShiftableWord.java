@@ -17,6 +17,7 @@ package com.kstenschke.shifter.models;
 
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.ShifterPreferences;
 import com.kstenschke.shifter.models.shiftableTypes.CssUnit;
 import com.kstenschke.shifter.models.shiftableTypes.JsDoc;
@@ -129,15 +130,17 @@ public class ShiftableWord {
      *
      * @param  word
      * @param  postfix
+     * @param  document
+     * @param  project
      * @return String   Post-processed word
      */
-    private String postProcess(String word, String postfix) {
+    private String postProcess(String word, String postfix, Document document, @Nullable Project project) {
         if (UtilsFile.isCssFile(this.filename)) {
             switch (this.wordType) {
                 // "0" was shifted to a different numeric value, inside a CSS file, so we can add a measure unit
                 case ShiftableTypesManager.TYPE_NUMERIC_VALUE:
                     if (!CssUnit.isCssUnit(postfix)) {
-                        return word + CssUnit.determineMostProminentUnit(this.editorText.toString());
+                        return word + DocumentAnalysis.getInstance(document).getMostProminentCssUnit(this.caretOffset, project);
                     }
                     break;
                 case ShiftableTypesManager.TYPE_CSS_UNIT:
@@ -172,7 +175,7 @@ public class ShiftableWord {
         String word        = UtilsTextual.getOperatorAtOffset(editorText, caretOffset);
         if (word == null) {
             boolean isCSS = fileExtension != null && fileExtension.endsWith("css");
-            word = UtilsTextual.getWordAtOffset(editorText, caretOffset, isCSS);
+            word = DocumentAnalysis.getInstance(document).getWordAtOffset(caretOffset, isCSS);
         } else {
             isOperator = true;
         }
@@ -251,7 +254,7 @@ public class ShiftableWord {
 
         String newWord = shiftableShiftableWord.getShifted(shiftUp, editor);
         if (newWord != null && newWord.length() > 0 && !newWord.matches(Pattern.quote(word)) && wordOffset != null) {
-            newWord = shiftableShiftableWord.postProcess(newWord, postfixChar);
+            newWord = shiftableShiftableWord.postProcess(newWord, postfixChar, document, editor.getProject());
 
             if (replaceInDocument) {
                 // Replace word at caret by shifted one (if any)
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.models;
+
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.ShifterPreferences;
+import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.UtilsEnvironment;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Guard against freezing the IDE on large files like minified bundles or SQL dumps: shift strategies applied to texts
+ * longer than the configured size budget degrade to a bounded variant (ex: scanning only a window around the caret) or
+ * are skipped, and notify about it.
+ */
+public class SizeBudget {
+
+    /**
+     * @param  textLength   Length (in characters) of the text to be processed
+     * @return boolean      Is the given length within the configured size budget?
+     */
+    public static boolean isWithinBudget(int textLength) {
+        return textLength <= ShifterPreferences.getSizeBudget();
+    }
+
+    /**
+     * Show non-blocking notice about a shift strategy that was degraded or skipped because of exceeding the size budget
+     *
+     * @param project
+     * @param message
+     */
+    public static void notifyBudgetExceeded(@Nullable Project project, String message) {
+        UtilsEnvironment.notify(project, StaticTexts.TITLE_SIZE_BUDGET_EXCEEDED, message);
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.models;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.Processor;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.kstenschke.shifter.utils.UtilsFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * File based index of the quoted strings and PHP variables within all files of a project.
+ * Keys are the quoted strings prefixed w/ their quote character (ex: 'foo), and the PHP variable names (ex: $foo).
+ * The IDE builds and updates the index in the background. The keys within the project scope are collected by a
+ * background task, shifting uses the last collected snapshot and never scans files itself. Outdated keys are filtered
+ * lazily, when offered as shifting result.
+ */
+public class VocabularyIndex extends ScalarIndexExtension<String> {
+
+    public static final ID<String, Void> NAME = ID.create("com.kstenschke.shifter.VocabularyIndex");
+
+    private static final int VERSION = 1;
+
+    // Larger files (ex: minified bundles, dumps) are not indexed
+    private static final int MAX_FILE_LENGTH = 1024 * 1024;
+
+    private static final String INDEXED_FILE_EXTENSIONS = ",css,htm,html,java,js,json,jsx,less,php,phtml,py,sass,scss,sql,ts,tsx,twig,xml,yaml,yml,";
+
+    private static final String[] QUOTE_CHARACTERS = new String[]{"'", "\"", "`"};
+
+    private static final Pattern[] PATTERNS_QUOTED_STRINGS = new Pattern[]{
+            Pattern.compile("(?<=')[a-zA-Z0-9_]+(?=')"),
+            Pattern.compile("(?<=\")[a-zA-Z0-9_]+(?=\")"),
+            Pattern.compile("(?<=`)[a-zA-Z0-9_]+(?=`)")
+    };
+
+    private static final Pattern PATTERN_PHP_VARIABLE = Pattern.compile("\\$[a-zA-Z0-9_]+");
+
+    private static final Key<Vocabulary> KEY_VOCABULARY = Key.create("Shifter.Vocabulary");
+
+    private static final Key<AtomicBoolean> KEY_IS_REFRESHING = Key.create("Shifter.Vocabulary.isRefreshing");
+
+    /**
+     * Snapshot of the keys of the index within a project's scope, grouped by prefix (quote character or "$")
+     */
+    private static class Vocabulary {
+
+        // Modification count of the virtual file system, when the keys were collected
+        private final long modificationCount;
+
+        private final Map<String, List<String>> wordsByPrefix = new HashMap<String, List<String>>();
+
+        Vocabulary(long modificationCount) {
+            this.modificationCount = modificationCount;
+        }
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Void> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return new DataIndexer<String, Void, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, Void> map(@NotNull FileContent inputData) {
+                return extractVocabulary(inputData.getContentAsText(), UtilsFile.isPhpFile(inputData.getFileName()));
+            }
+        };
+    }
+
+    /**
+     * @param  text
+     * @param  isPhp                Extract also PHP variables?
+     * @return Map<String, Void>    Keys of the index: quoted strings prefixed w/ their quote character, PHP variable names
+     */
+    @NotNull
+    public static Map<String, Void> extractVocabulary(CharSequence text, boolean isPhp) {
+        Map<String, Void> vocabulary = new HashMap<String, Void>();
+
+        for (int i = 0; i < QUOTE_CHARACTERS.length; i++) {
+            Matcher m = PATTERNS_QUOTED_STRINGS[i].matcher(text);
+            while (m.find()) {
+                vocabulary.put(QUOTE_CHARACTERS[i] + m.group(), null);
+            }
+        }
+
+        if (isPhp) {
+            Matcher m = PATTERN_PHP_VARIABLE.matcher(text);
+            while (m.find()) {
+                vocabulary.put(m.group(), null);
+            }
+        }
+
+        return vocabulary;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return new EnumeratorStringDescriptor();
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new FileBasedIndex.InputFilter() {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                String extension = file.getExtension();
+
+                return extension != null
+                    && file.getLength() <= MAX_FILE_LENGTH
+                    && INDEXED_FILE_EXTENSIONS.contains("," + extension.toLowerCase() + ",");
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return VERSION;
+    }
+
+    /**
+     * @param  project
+     * @param  quoteChar
+     * @return List<String> All strings wrapped in the given quote character, found in the project (empty while indexing)
+     */
+    @NotNull
+    public static List<String> getQuotedStrings(@NotNull Project project, String quoteChar) {
+        return getWords(project, quoteChar);
+    }
+
+    /**
+     * @param  project
+     * @return List<String> All PHP variables found in the project (empty while indexing)
+     */
+    @NotNull
+    public static List<String> getPhpVariables(@NotNull Project project) {
+        return getWords(project, "$");
+    }
+
+    /**
+     * @param  project
+     * @param  prefix       Quote character or "$"
+     * @return List<String> Copy of the vocabulary's words of the given prefix (quoted strings w/o quote character)
+     */
+    @NotNull
+    private static List<String> getWords(@NotNull Project project, String prefix) {
+        List<String> words = getWordsByPrefix(project).get(prefix);
+
+        return null == words ? new ArrayList<String>() : new ArrayList<String>(words);
+    }
+
+    /**
+     * Get the last collected snapshot of the project's vocabulary. If files of the file system changed since (and are
+     * re-indexed), a refresh of the snapshot is started in the background. Unsaved changes of the current document are
+     * covered by the DocumentAnalysis.
+     *
+     * @param  project
+     * @return Map<String, List<String>>    Words of the project's vocabulary, by prefix (empty until first collected)
+     */
+    @NotNull
+    private static Map<String, List<String>> getWordsByPrefix(@NotNull Project project) {
+        // The index is not accessible while the IDE is (re-)indexing
+        if (DumbService.isDumb(project)) {
+            return Collections.emptyMap();
+        }
+
+        Vocabulary vocabulary = project.getUserData(KEY_VOCABULARY);
+        if (null == vocabulary || vocabulary.modificationCount != VirtualFileManager.getInstance().getModificationCount()) {
+            refreshInBackground(project);
+        }
+
+        return null == vocabulary ? Collections.<String, List<String>>emptyMap() : vocabulary.wordsByPrefix;
+    }
+
+    /**
+     * Collect the keys of the index within the project scope in a background read action (in smart mode), and store
+     * them as the project's vocabulary snapshot. Only one refresh per project runs at a time.
+     *
+     * @param project
+     */
+    private static void refreshInBackground(@NotNull final Project project) {
+        AtomicBoolean isRefreshing = project.getUserData(KEY_IS_REFRESHING);
+        if (null == isRefreshing) {
+            isRefreshing = new AtomicBoolean(false);
+            project.putUserData(KEY_IS_REFRESHING, isRefreshing);
+        }
+        if (!isRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+
+        final AtomicBoolean isRefreshingFinal = isRefreshing;
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DumbService.getInstance(project).runReadActionInSmartMode(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!project.isDisposed()) {
+                                project.putUserData(KEY_VOCABULARY, collectVocabulary(project));
+                            }
+                        }
+                    });
+                } finally {
+                    isRefreshingFinal.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Filter outdated words lazily, when offered as shifting result: processAllKeys() can report keys that are no longer
+     * contained in any file. Outdated words are removed from the project's vocabulary snapshot.
+     *
+     * @param  project
+     * @param  prefix   Quote character or "$"
+     * @param  word     Word of the project's vocabulary (quoted string w/o quote character)
+     * @return boolean  Is the given word still contained in a file of the project?
+     */
+    public static boolean isContainedInProject(@NotNull Project project, String prefix, String word) {
+        if (DumbService.isDumb(project)) {
+            return false;
+        }
+
+        String key = "$".equals(prefix) ? word : prefix + word;
+        if (!FileBasedIndex.getInstance().getContainingFiles(NAME, key, GlobalSearchScope.projectScope(project)).isEmpty()) {
+            return true;
+        }
+
+        Vocabulary vocabulary = project.getUserData(KEY_VOCABULARY);
+        if (null != vocabulary && null != vocabulary.wordsByPrefix.get(prefix)) {
+            vocabulary.wordsByPrefix.get(prefix).remove(word);
+        }
+
+        return false;
+    }
+
+    /**
+     * @param  project
+     * @return Vocabulary   Keys of the index within the project scope, grouped by prefix
+     */
+    @NotNull
+    private static Vocabulary collectVocabulary(@NotNull Project project) {
+        // Take the count before collecting: files changing meanwhile cause another refresh
+        final Vocabulary vocabulary = new Vocabulary(VirtualFileManager.getInstance().getModificationCount());
+
+        FileBasedIndex.getInstance().processAllKeys(NAME, new Processor<String>() {
+            @Override
+            public boolean process(String key) {
+                if (key.isEmpty()) {
+                    return true;
+                }
+
+                String prefix      = key.substring(0, 1);
+                List<String> words = vocabulary.wordsByPrefix.get(prefix);
+                if (null == words) {
+                    words = new ArrayList<String>();
+                    vocabulary.wordsByPrefix.put(prefix, words);
+                }
+                words.add("$".equals(prefix) ? key : key.substring(1));
+
+                return true;
+            }
+        }, GlobalSearchScope.projectScope(project), null);
+
+        return vocabulary;
+    }
+}
@@ -23,123 +23,282 @@ package com.kstenschke.shifter.models.comparators;
  * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
  */
 
-import org.apache.commons.lang.StringUtils;
+import com.kstenschke.shifter.ShifterPreferences;
+
+import java.text.Collator;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.IntFunction;
 
 public class AlphanumComparator implements Comparator<String>
 {
-    private Comparator<String> comparator = new NaturalComparator();
+    // Comparator for non-numeric chunks. Null: compare lexicographically (w/o extracting the chunks)
+    private Comparator<String> comparator = null;
+
+    // One of ShifterPreferences.SORTING_MODE_CASE_SENSITIVE / _CASE_INSENSITIVE / _LOCALE
+    private final int sortingMode;
+
+    // Collators are not thread-safe: keys of items to be sorted in parallel are collated by one collator per thread
+    private ThreadLocal<Collator> collators = null;
 
     public AlphanumComparator(Comparator<String> comparator) {
+        this();
         this.comparator = comparator;
     }
 
     public AlphanumComparator() {
-
+        this(ShifterPreferences.SORTING_MODE_CASE_INSENSITIVE);
     }
 
-    private boolean isDigit(char ch) {
-        return ch >= 48 && ch <= 57;
+    /**
+     * @param sortingMode   One of ShifterPreferences.SORTING_MODE_CASE_SENSITIVE / _CASE_INSENSITIVE / _LOCALE
+     */
+    public AlphanumComparator(int sortingMode) {
+        this.sortingMode = sortingMode;
+
+        if (sortingMode == ShifterPreferences.SORTING_MODE_LOCALE) {
+            collators = new ThreadLocal<Collator>() {
+                @Override
+                protected Collator initialValue() {
+                    Collator collator = Collator.getInstance();
+                    // Differences in case and accents are ignored (like case is by the case-insensitive mode), so they
+                    // do not take precedence over numbers in later chunks. Stable sorting keeps the order of such items
+                    collator.setStrength(Collator.PRIMARY);
+                    collator.setDecomposition(Collator.CANONICAL_DECOMPOSITION);
+
+                    return collator;
+                }
+            };
+        }
     }
 
-    /** Length of string is passed in for improved efficiency (only need to calculate it once) **/
-    private String getChunk(String str, int strLength, int offset) {
-        StringBuilder chunk = new StringBuilder();
-        char currentChar = str.charAt(offset);
-        chunk.append(currentChar);
+    /**
+     * @param  str
+     * @param  strLength
+     * @param  offset       Start offset of the chunk
+     * @param  isDigitChunk Is the chunk numeric?
+     * @return int          End offset of the chunk starting at the given offset: consecutive digits, or consecutive non-digits
+     */
+    private static int getChunkEnd(String str, int strLength, int offset, boolean isDigitChunk) {
         offset++;
+        while (offset < strLength && isAsciiDigit(str.charAt(offset)) == isDigitChunk) {
+            offset++;
+        }
 
-        if (isDigit(currentChar)) {
-            while (offset < strLength) {
-                currentChar = str.charAt(offset);
-                if (!isDigit(currentChar)) {
-                    break;
-                }
-                chunk.append(currentChar);
-                offset++;
+        return offset;
+    }
+
+    /**
+     * Slow path: prepares the sort keys of both strings on every call (i.e. O(n log n) times when used for sorting via
+     * Collections.sort()). To sort, use sort() / sortParallel(), to compare items repeatedly, prepare their keys once
+     * via getSortKey() and compare them via compareKeys().
+     *
+     * @param  s1
+     * @param  s2
+     * @return int
+     */
+    public int compare(String s1, String s2) {
+        return compareKeys(getSortKey(s1), getSortKey(s2));
+    }
+
+    /**
+     * Sort given strings, w/ the sort key of each string being prepared only once (instead of on every comparison).
+     * Ordering is identical to sorting via compare(), equal strings maintain their order.
+     *
+     * @param items     Strings to be sorted, the list is sorted in place
+     */
+    public void sort(List<String> items) {
+        sort(items, false);
+    }
+
+    /**
+     * Sort given strings like sort(), preparing the sort keys and merge-sorting in parallel, on the fork-join pool
+     *
+     * @param items     Strings to be sorted, the list is sorted in place
+     */
+    public void sortParallel(List<String> items) {
+        sort(items, true);
+    }
+
+    private void sort(List<String> items, boolean isParallel) {
+        final String[] itemsArray = items.toArray(new String[items.size()]);
+        KeyedItem[] keyedItems    = new KeyedItem[itemsArray.length];
+
+        Comparator<KeyedItem> keyedItemsComparator = new Comparator<KeyedItem>() {
+            public int compare(KeyedItem keyedItem1, KeyedItem keyedItem2) {
+                return compareKeys(keyedItem1.key, keyedItem2.key);
             }
-        } else {
-            while (offset < strLength) {
-                currentChar = str.charAt(offset);
-                if (isDigit(currentChar)) {
-                    break;
+        };
+
+        if (isParallel) {
+            Arrays.parallelSetAll(keyedItems, new IntFunction<KeyedItem>() {
+                public KeyedItem apply(int index) {
+                    return new KeyedItem(getSortKey(itemsArray[index]), itemsArray[index]);
                 }
-                chunk.append(currentChar);
-                offset++;
+            });
+            // Stable parallel merge sort
+            Arrays.parallelSort(keyedItems, keyedItemsComparator);
+        } else {
+            for (int index = 0; index < itemsArray.length; index++) {
+                keyedItems[index] = new KeyedItem(getSortKey(itemsArray[index]), itemsArray[index]);
             }
+            Arrays.sort(keyedItems, keyedItemsComparator);
         }
-        return chunk.toString();
-    }
 
-    public int compare(String s1, String s2) {
-        s1 = prepareStringForCompare(s1);
-        s2 = prepareStringForCompare(s2);
+        ListIterator<String> iterator = items.listIterator();
+        for (KeyedItem keyedItem : keyedItems) {
+            iterator.next();
+            iterator.set(keyedItem.item);
+        }
+    }
 
+    /**
+     * Compare given keys in place, w/o allocating objects
+     *
+     * @param  s1   Sort key, as prepared by getSortKey()
+     * @param  s2   Sort key, as prepared by getSortKey()
+     * @return int
+     */
+    public int compareKeys(String s1, String s2) {
         int thisMarker = 0;
         int thatMarker = 0;
         int s1Length = s1.length();
         int s2Length = s2.length();
 
         while (thisMarker < s1Length && thatMarker < s2Length) {
-            String thisChunk = getChunk(s1, s1Length, thisMarker);
-            thisMarker += thisChunk.length();
+            boolean isThisDigitChunk = isAsciiDigit(s1.charAt(thisMarker));
+            boolean isThatDigitChunk = isAsciiDigit(s2.charAt(thatMarker));
 
-            String thatChunk = getChunk(s2, s2Length, thatMarker);
-            thatMarker += thatChunk.length();
+            int thisChunkEnd = getChunkEnd(s1, s1Length, thisMarker, isThisDigitChunk);
+            int thatChunkEnd = getChunkEnd(s2, s2Length, thatMarker, isThatDigitChunk);
+
+            int thisChunkLength = thisChunkEnd - thisMarker;
+            int thatChunkLength = thatChunkEnd - thatMarker;
 
-            // If both chunks contain numeric characters, sort them numerically
             int result;
-            if (isDigit(thisChunk.charAt(0)) && isDigit(thatChunk.charAt(0))) {
-                // Simple chunk comparison by length.
-                int thisChunkLength = thisChunk.length();
-                result = thisChunkLength - thatChunk.length();
-                // If equal, the first different number counts
+            if (isThisDigitChunk && isThatDigitChunk) {
+                // Both chunks are numeric: compare by length (keys have equally zero-padded numbers), then digit-wise
+                result = thisChunkLength - thatChunkLength;
                 if (result == 0) {
                     for (int i = 0; i < thisChunkLength; i++) {
-                        result = thisChunk.charAt(i) - thatChunk.charAt(i);
-                        if (result != 0)
-                        {
+                        result = s1.charAt(thisMarker + i) - s2.charAt(thatMarker + i);
+                        if (result != 0) {
                             return result;
                         }
                     }
                 }
+            } else if (comparator == null) {
+                result = compareLexicographically(s1, thisMarker, thisChunkLength, s2, thatMarker, thatChunkLength);
             } else {
-                // Both compared characters are alphabetic
-                result = comparator.compare(thisChunk, thatChunk);
+                result = comparator.compare(s1.substring(thisMarker, thisChunkEnd), s2.substring(thatMarker, thatChunkEnd));
             }
 
             if (result != 0) {
                 return result;
             }
+
+            thisMarker = thisChunkEnd;
+            thatMarker = thatChunkEnd;
         }
 
         return s1Length - s2Length;
     }
 
     /**
-     * @param str
-     * @return Lowercase version of given string w/ all contained number-chunks converted to having 10 digits
+     * Compare chunks of given strings in place, like String.compareTo() of the chunks would
+     */
+    private static int compareLexicographically(String s1, int offset1, int length1, String s2, int offset2, int length2) {
+        int minLength = Math.min(length1, length2);
+        for (int i = 0; i < minLength; i++) {
+            int result = s1.charAt(offset1 + i) - s2.charAt(offset2 + i);
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return length1 - length2;
+    }
+
+    /**
+     * @param  str
+     * @return Sort key of given string: all contained number-chunks converted to having (at least) 10 digits, other
+     *         chunks lowercase (case-insensitive mode), as is (case-sensitive mode) or collated (locale mode)
      */
-    private static String prepareStringForCompare(String str) {
-        // Convert all numeric-chunks within str to having 10 digits
-        String parts[] = str.split("(?<=\\D)(?=\\d)|(?<=\\d)(?=\\D)");
-        int index = 0;
-        for (String part : parts) {
-            if (StringUtils.isNumeric(part)) {
-                while (part.length() < 10) {
-                    part = "0" + part;
+    public String getSortKey(String str) {
+        int length = str.length();
+        if (length == 0) {
+            // An empty string is considered a number-chunk
+            return "0000000000";
+        }
+
+        Collator collator = collators == null ? null : collators.get();
+
+        StringBuilder key = new StringBuilder(length + 10);
+        int offsetChunkStart = 0;
+        while (offsetChunkStart < length) {
+            // Find end of chunk: consecutive digits 0-9, or consecutive other characters
+            boolean isDigitChunk = isAsciiDigit(str.charAt(offsetChunkStart));
+            int offsetChunkEnd   = getChunkEnd(str, length, offsetChunkStart, isDigitChunk);
+
+            if (isDigitChunk || isNumeric(str, offsetChunkStart, offsetChunkEnd)) {
+                for (int amountDigits = offsetChunkEnd - offsetChunkStart; amountDigits < 10; amountDigits++) {
+                    key.append('0');
                 }
-                parts[index] = part;
+                key.append(str, offsetChunkStart, offsetChunkEnd);
+            } else if (collator != null) {
+                appendCollationKey(key, collator.getCollationKey(str.substring(offsetChunkStart, offsetChunkEnd)).toByteArray());
+            } else {
+                key.append(str, offsetChunkStart, offsetChunkEnd);
+            }
+
+            offsetChunkStart = offsetChunkEnd;
+        }
+
+        return sortingMode == ShifterPreferences.SORTING_MODE_CASE_INSENSITIVE
+                ? key.toString().toLowerCase()
+                : key.toString();
+    }
+
+    /**
+     * Append bytes of given collation key as characters (outside of the ASCII range, so they never form number-chunks),
+     * comparing lexicographically like the collation keys compare
+     *
+     * @param key
+     * @param collationKey
+     */
+    private static void appendCollationKey(StringBuilder key, byte[] collationKey) {
+        for (byte collationByte : collationKey) {
+            key.append((char) (0x100 + (collationByte & 0xFF)));
+        }
+    }
+
+    private static boolean isAsciiDigit(char ch) {
+        return ch >= '0' && ch <= '9';
+    }
+
+    /**
+     * @return boolean  Consists the given part of the string only of (unicode) digits?
+     */
+    private static boolean isNumeric(String str, int offsetStart, int offsetEnd) {
+        for (int offset = offsetStart; offset < offsetEnd; offset++) {
+            if (!Character.isDigit(str.charAt(offset))) {
+                return false;
             }
-            index++;
         }
 
-        return StringUtils.join(parts).toLowerCase();
+        return true;
     }
 
-    private static class NaturalComparator implements Comparator<String> {
-        public int compare(String o1, String o2) {
-            return o1.compareTo(o2);
+    private static class KeyedItem {
+
+        private final String key;
+        private final String item;
+
+        KeyedItem(String key, String item) {
+            this.key  = key;
+            this.item = item;
         }
     }
 }
\ No newline at end of file
@@ -15,11 +15,58 @@
  */
 package com.kstenschke.shifter.models.comparators;
 
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.regex.Pattern;
 
 import static org.apache.commons.lang.StringUtils.trim;
 
+/**
+ * Comparator of CSS "<attribute>:<style>" declaration lines: empty lines and closing braces to the end, vendor-prefixed
+ * attributes behind regular ones, shorter of identically beginning attributes ahead, vendor-prefixed styles behind.
+ * Each line is parsed only once into a declaration key, when sorting via sort().
+ */
 public class CssAttributesStyleLineComparator implements Comparator<String> {
+
+    private static final Pattern PATTERN_VENDOR_STYLE = Pattern.compile("^-[a-z].*$");
+
+    /**
+     * CSS declaration line, parsed into the parts it is compared by
+     */
+    static class DeclarationKey {
+        final String line;
+        final int index;
+        final boolean isEmpty;
+        final boolean isClosingBrace;
+        final String attribute;
+        final boolean isVendorAttribute;
+        final boolean isVendorStyle;
+
+        DeclarationKey(String line, int index) {
+            this.line  = line;
+            this.index = index;
+
+            String trimmed = trim(line);
+            isEmpty        = trimmed.isEmpty();
+            isClosingBrace = trimmed.equals("}");
+
+            // Attribute: part before 1st ":", style: part between 1st and 2nd ":"
+            int offsetColon = line.indexOf(':');
+            if (-1 == offsetColon) {
+                attribute = trimmed;
+                isVendorStyle = false;
+            } else {
+                int offsetColon2 = line.indexOf(':', offsetColon + 1);
+                attribute = trim(line.substring(0, offsetColon));
+                isVendorStyle = PATTERN_VENDOR_STYLE.matcher(
+                        trim(line.substring(offsetColon + 1, -1 == offsetColon2 ? line.length() : offsetColon2))).matches();
+            }
+            isVendorAttribute = attribute.startsWith("-");
+        }
+    }
+
     /**
      * @param  str1
      * @param  str2
@@ -27,45 +74,81 @@ public class CssAttributesStyleLineComparator implements Comparator<String> {
      */
     @Override
     public int compare(String str1, String str2) {
-        if (str1.equals(str2)) {
-            return 0;
+        return str1.equals(str2) ? 0 : compareKeys(new DeclarationKey(str1, 0), new DeclarationKey(str2, 1));
+    }
+
+    /**
+     * Sort given declaration lines, w/ each line being parsed only once (instead of on every comparison).
+     * Ordering is identical to sorting via compare(), equal lines maintain their order.
+     *
+     * @param lines     Lines to be sorted, the list is sorted in place
+     */
+    public void sort(List<String> lines) {
+        String[] linesArray = lines.toArray(new String[lines.size()]);
+
+        ListIterator<String> iterator = lines.listIterator();
+        for (int index : getSortedIndices(lines)) {
+            iterator.next();
+            iterator.set(linesArray[index]);
+        }
+    }
+
+    /**
+     * @param  lines
+     * @return int[]    Indices of the given lines in sorted order (as by sort())
+     */
+    public int[] getSortedIndices(List<String> lines) {
+        DeclarationKey[] keys = new DeclarationKey[lines.size()];
+        int index = 0;
+        for (String line : lines) {
+            keys[index] = new DeclarationKey(line, index);
+            index++;
         }
 
-        String str1Trimmed = trim(str1);
-        String str2Trimmed = trim(str2);
+        Arrays.sort(keys, new Comparator<DeclarationKey>() {
+            public int compare(DeclarationKey key1, DeclarationKey key2) {
+                return key1.line.equals(key2.line) ? 0 : compareKeys(key1, key2);
+            }
+        });
 
+        int[] indices = new int[keys.length];
+        for (index = 0; index < keys.length; index++) {
+            indices[index] = keys[index].index;
+        }
+
+        return indices;
+    }
+
+    /**
+     * @param  key1
+     * @param  key2
+     * @return int
+     */
+    private static int compareKeys(DeclarationKey key1, DeclarationKey key2) {
         // Move empty line to the very end
-        if (str2Trimmed.isEmpty()) {
+        if (key2.isEmpty) {
             return -1;
-        } else if (str1Trimmed.isEmpty()) {
+        } else if (key1.isEmpty) {
             return 1;
         }
 
         // Ensure closing of selector is at the end
-        if (str2Trimmed.equals("}")) {
+        if (key2.isClosingBrace) {
             return -1;
-        } else if (str1Trimmed.equals("}")) {
+        } else if (key1.isClosingBrace) {
             return 1;
         }
 
-        String parts1[] = str1.split(":");
-        String attribute1 = trim(parts1[0]);
-        String style1     = parts1.length > 1 ? trim(parts1[1]) : "";
-
-        String parts2[] = str2.split(":");
-        String attribute2 = trim(parts2[0]);
-        String style2     = parts2.length > 1 ? trim(parts2[1]) : "";
-
         // Move vendor-attributes (prefixed w/ "-", ex: "-moz-transition: opacity .3s;") behind
-        boolean attribute1IsVendor = attribute1.startsWith("-");
-        boolean attribute2IsVendor = attribute2.startsWith("-");
-        if (attribute1IsVendor && !attribute2IsVendor) {
+        if (key1.isVendorAttribute && !key2.isVendorAttribute) {
             return 1;
-        } else if (attribute2IsVendor && !attribute1IsVendor) {
+        } else if (key2.isVendorAttribute && !key1.isVendorAttribute) {
             return -1;
         }
 
         // Move shorter of otherwise identically beginning attributes ahead
+        String attribute1 = key1.attribute;
+        String attribute2 = key2.attribute;
         int attribute1Length = attribute1.length();
         int attribute2Length = attribute2.length();
         if (attribute1Length > attribute2Length) {
@@ -78,16 +161,14 @@ public class CssAttributesStyleLineComparator implements Comparator<String> {
 
         // Move vendor-styles (prefixed w/ "-", ex: "width: -moz-calc(19.75rem - 1px);") behind
         if (attribute1.equals(attribute2)) {
-            boolean style1IsVendor = style1.matches("^-[a-z].*$");
-            boolean style2IsVendor = style2.matches("^-[a-z].*$");
-            if (style1IsVendor && !style2IsVendor) {
+            if (key1.isVendorStyle && !key2.isVendorStyle) {
                 return 1;
-            } else if (style2IsVendor && !style1IsVendor) {
+            } else if (key2.isVendorStyle && !key1.isVendorStyle) {
                 return -1;
             }
         }
 
         // Regular compare
-        return str1.compareTo(str2);
+        return key1.line.compareTo(key2.line);
     }
 }
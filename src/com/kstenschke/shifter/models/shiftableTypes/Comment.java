@@ -23,11 +23,11 @@ import com.intellij.openapi.ui.popup.JBPopupFactory;
 import com.intellij.openapi.ui.popup.PopupChooserBuilder;
 import com.intellij.ui.components.JBList;
 import com.kstenschke.shifter.resources.StaticTexts;
+import com.kstenschke.shifter.utils.LinesDiff;
 import com.kstenschke.shifter.utils.UtilsFile;
 import com.kstenschke.shifter.utils.UtilsTextual;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import static org.apache.commons.lang.StringUtils.trim;
@@ -61,11 +61,13 @@ public class Comment {
         if (!str.contains("\n")) {
             return false;
         }
-        String lines[] = str.split("\n");
-        for (String line : lines) {
-            if (!trim(line).startsWith("//")) {
+        int offsetEnd = getOffsetAfterLastLine(str);
+        for (int offsetLineStart = 0; offsetLineStart < offsetEnd; ) {
+            int offsetLineEnd = getOffsetLineEnd(str, offsetLineStart, offsetEnd);
+            if (!trim(str.substring(offsetLineStart, offsetLineEnd)).startsWith("//")) {
                 return false;
             }
+            offsetLineStart = offsetLineEnd + 1;
         }
         return true;
     }
@@ -156,7 +158,7 @@ public class Comment {
                                             ? shiftMultipleBlockCommentLines(str, true)
                                             : shiftMultipleBlockCommentLines(str, false);
 
-                                        document.replaceString(offsetStart, offsetEnd, shifted);
+                                        LinesDiff.replaceString(document, offsetStart, offsetEnd, shifted);
                                     }
                                 },
                                 null, null);
@@ -202,7 +204,7 @@ public class Comment {
                                                 shifted = sortLineComments(str, true);
                                                 break;
                                         }
-                                        document.replaceString(offsetStart, offsetEnd, shifted);
+                                        LinesDiff.replaceString(document, offsetStart, offsetEnd, shifted);
                                     }
                                 },
                                 null, null);
@@ -212,15 +214,44 @@ public class Comment {
         }).setMovable(true).createPopup().showCenteredInCurrentWindow(project);
     }
 
-    private static String shiftMultipleBlockCommentLines(String str, boolean merge) {
+    /**
+     * @param  str
+     * @return int      Offset after the last line of the given string, ignoring trailing empty lines (like String.split())
+     */
+    private static int getOffsetAfterLastLine(String str) {
+        int offsetEnd = str.length();
+        while (offsetEnd > 0 && '\n' == str.charAt(offsetEnd - 1)) {
+            offsetEnd--;
+        }
+
+        return offsetEnd;
+    }
+
+    /**
+     * @param  str
+     * @param  offsetLineStart
+     * @param  offsetEnd
+     * @return int              Offset of the end (excluding newline) of the line starting at the given offset
+     */
+    private static int getOffsetLineEnd(String str, int offsetLineStart, int offsetEnd) {
+        int offsetNewline = str.indexOf('\n', offsetLineStart);
+
+        return -1 == offsetNewline || offsetNewline > offsetEnd ? offsetEnd : offsetNewline;
+    }
+
+    static String shiftMultipleBlockCommentLines(String str, boolean merge) {
         str = trim(str).substring(2);
 
-        String lines[] = str.split("\n");
-        int index = 0;
+        StringBuilder result = new StringBuilder(str.length() + 16);
+        result.append("//");
+
+        int offsetEnd = getOffsetAfterLastLine(str);
+        int index     = 0;
+        for (int offsetLineStart = 0; offsetLineStart < offsetEnd; index++) {
+            int offsetLineEnd = getOffsetLineEnd(str, offsetLineStart, offsetEnd);
+            String line = trim(str.substring(offsetLineStart, offsetLineEnd));
+            offsetLineStart = offsetLineEnd + 1;
 
-        String result = "//";
-        for (String line : lines) {
-            line = trim(line);
             if (line.startsWith("* ")) {
                 line = line.substring(2);
             }
@@ -229,64 +260,78 @@ public class Comment {
                 line = trim(line.substring(1));
             }
             if (!line.isEmpty()) {
-                result += merge
-                    ? " " + line
-                    : (index == 0 ? "" : "\n") + "// " + line;
+                if (merge) {
+                    result.append(' ').append(line);
+                } else {
+                    result.append(index == 0 ? "" : "\n").append("// ").append(line);
+                }
             }
-            index++;
         }
 
         // Remove trailing "*/"
-        result = result.substring(0, result.length() - 2);
+        result.setLength(result.length() - 2);
 
-        if (!merge) {
-            // Remove empty comment lines
-            result = result.replace("\n//\n", "\n");
-            if (result.startsWith("//\n")) {
-                result = result.substring(3);
-            }
-            if (result.endsWith("\n// ")) {
-                result = result.substring(0, result.length() - 4);
-            }
+        if (merge) {
+            return result.toString();
+        }
+
+        // Remove empty comment lines
+        String shifted = result.toString().replace("\n//\n", "\n");
+        if (shifted.startsWith("//\n")) {
+            shifted = shifted.substring(3);
+        }
+        if (shifted.endsWith("\n// ")) {
+            shifted = shifted.substring(0, shifted.length() - 4);
         }
 
-        return result;
+        return shifted;
     }
 
-    private static String convertMultipleLineCommentsToBlockComment(String str) {
-        String lines[] = str.split("\n");
-        String result  = "";
-        int index = 0;
-        for (String line : lines) {
-            result += (index == 0 ? "" : "\n") + " * " + trim(trim(line).substring(2));
-            index++;
+    static String convertMultipleLineCommentsToBlockComment(String str) {
+        StringBuilder result = new StringBuilder(str.length() + 16);
+        result.append("/**\n");
+
+        int offsetEnd = getOffsetAfterLastLine(str);
+        for (int offsetLineStart = 0; offsetLineStart < offsetEnd; ) {
+            int offsetLineEnd = getOffsetLineEnd(str, offsetLineStart, offsetEnd);
+            result.append(offsetLineStart == 0 ? "" : "\n").append(" * ").append(trim(trim(str.substring(offsetLineStart, offsetLineEnd)).substring(2)));
+            offsetLineStart = offsetLineEnd + 1;
         }
 
-        return "/**\n" + result + "\n */";
+        return result.append("\n */").toString();
     }
 
-    private static String mergeMultipleLineComments(String str) {
-        String lines[] = str.split("\n");
-        String result  = "";
-        int index = 0;
-        for (String line : lines) {
-            result += (index == 0 ? "" : " ") + trim(trim(line).substring(2));
-            index++;
+    static String mergeMultipleLineComments(String str) {
+        StringBuilder result = new StringBuilder(str.length());
+        result.append("// ");
+
+        int offsetEnd = getOffsetAfterLastLine(str);
+        for (int offsetLineStart = 0; offsetLineStart < offsetEnd; ) {
+            int offsetLineEnd = getOffsetLineEnd(str, offsetLineStart, offsetEnd);
+            result.append(offsetLineStart == 0 ? "" : " ").append(trim(trim(str.substring(offsetLineStart, offsetLineEnd)).substring(2)));
+            offsetLineStart = offsetLineEnd + 1;
         }
 
-        return "// " + result;
+        return result.toString();
     }
 
-    private static String sortLineComments(String str, boolean reverse) {
-        List<String> lines       = Arrays.asList(str.split("\n"));
-        List<String> shiftedList = UtilsTextual.sortLinesNatural(lines, reverse);
-        String result = "";
+    static String sortLineComments(String str, boolean reverse) {
+        List<String> lines = new ArrayList<String>();
+
+        int offsetEnd = getOffsetAfterLastLine(str);
+        for (int offsetLineStart = 0; offsetLineStart < offsetEnd; ) {
+            int offsetLineEnd = getOffsetLineEnd(str, offsetLineStart, offsetEnd);
+            lines.add(str.substring(offsetLineStart, offsetLineEnd));
+            offsetLineStart = offsetLineEnd + 1;
+        }
+
+        StringBuilder result = new StringBuilder(str.length());
         int index = 0;
-        for(String line : shiftedList) {
-            result += (index == 0 ? "" : "\n") + line;
+        for (String line : UtilsTextual.sortLinesNatural(lines, reverse)) {
+            result.append(index == 0 ? "" : "\n").append(line);
             index++;
         }
 
-        return result;
+        return result.toString();
     }
-}
\ No newline at end of file
+}
@@ -15,11 +15,15 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
+import com.intellij.openapi.util.TextRange;
+import com.kstenschke.shifter.ShifterPreferences;
 import com.kstenschke.shifter.models.comparators.CssAttributesStyleLineComparator;
 import com.kstenschke.shifter.utils.UtilsTextual;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.function.IntFunction;
 
 import static org.apache.commons.lang.StringUtils.trim;
 
@@ -33,40 +37,367 @@ public class Css {
      * @return String
      */
     public static String getShifted(String value) {
+        return getShifted(value, null);
+    }
 
-        return value.contains("{") && value.contains("}")
-            ? sortAttributeStyleLinesInsideSelectors(value)
-            : sortAttributeStyleLines(value);
+    /**
+     * @param  value
+     * @param  changedRanges    If given: receives the ranges (within the shifted value) whose declarations changed order
+     * @return String
+     */
+    public static String getShifted(String value, @Nullable List<TextRange> changedRanges) {
+        return getShifted(value, changedRanges, ShifterPreferences.getParallelSortMinLines());
     }
 
-    private static String sortAttributeStyleLinesInsideSelectors(String value) {
-        // Split CSS into groups of attribute-style lines per selector
-        String attributeGroups[]       = value.split("([^\r\n,{}]+)(,(?=[^}]*\\{)|\\s*\\{)");
-        String attributeGroupsSorted[] = new String[attributeGroups.length];
+    /**
+     * @param  value
+     * @param  changedRanges            If given: receives the ranges (within the shifted value) whose declarations changed order
+     * @param  parallelSortMinLines     Amount of lines of stylesheets from which on blocks are sorted in parallel
+     * @return String
+     */
+    static String getShifted(String value, @Nullable List<TextRange> changedRanges, int parallelSortMinLines) {
+        if (value.contains("{") && value.contains("}")) {
+            return sortAttributeStyleLinesInsideSelectors(value, changedRanges, parallelSortMinLines);
+        }
 
-        // 1. Collect groups of attribute-style lines per selector
-        int indexMatch = 0;
-        for (String attributeGroup : attributeGroups) {
-            if (indexMatch > 0) {
-                List<String> lines = splitAttributesIntoLines(attributeGroup);
+        String shifted = sortAttributeStyleLines(value);
+        if (null != changedRanges && !shifted.equals(value)) {
+            changedRanges.add(new TextRange(0, shifted.length()));
+        }
 
-                lines              = prepareAttributeStyleLinesForConcat(lines);
-                List<String> linesSorted = sortAttributeStyles(lines);
+        return shifted;
+    }
 
-                attributeGroupsSorted[indexMatch] = UtilsTextual.rtrim(UtilsTextual.joinLines(linesSorted).toString());
+    /**
+     * Sort declarations inside all blocks of given CSS / SCSS. Selectors, blocks, strings and comments are tokenized in
+     * one pass. Within blocks containing nested rules (SCSS), each run of declarations between the nested rules is
+     * sorted, the nested rules keep their position. The sorted runs are then written into the output in place.
+     * Large stylesheets (from the configured amount of lines on, like sorting lines) have their runs sorted in parallel,
+     * on the fork-join pool.
+     *
+     * @param  value
+     * @param  changedRanges            If given: receives the ranges of the runs (incl. the enclosing brace characters) whose declarations changed order
+     * @param  parallelSortMinLines     Amount of lines of stylesheets from which on runs are sorted in parallel
+     * @return String
+     */
+    private static String sortAttributeStyleLinesInsideSelectors(String value, @Nullable List<TextRange> changedRanges, int parallelSortMinLines) {
+        List<Integer> blocksOffsets = getDeclarationRunsOffsets(value);
+        int amountBlocks = blocksOffsets.size() / 2;
 
-                value = value.replaceFirst(Pattern.quote(attributeGroup), "###SHIFTERMARKER" + indexMatch + "###");
+        final String[] blocks = new String[amountBlocks];
+        for (int index = 0; index < amountBlocks; index++) {
+            blocks[index] = value.substring(blocksOffsets.get(index * 2), blocksOffsets.get(index * 2 + 1));
+        }
+
+        String[] blocksSorted = new String[amountBlocks];
+        if (StringUtils.countMatches(value, "\n") + 1 >= parallelSortMinLines) {
+            Arrays.parallelSetAll(blocksSorted, new IntFunction<String>() {
+                public String apply(int index) {
+                    return sortDeclarationsBlock(blocks[index]);
+                }
+            });
+        } else {
+            for (int index = 0; index < amountBlocks; index++) {
+                blocksSorted[index] = sortDeclarationsBlock(blocks[index]);
             }
-            indexMatch++;
         }
-        // 2. Replace attribute-rule groups by their sorted variant
-        for (int indexMarker = 1; indexMarker < indexMatch; indexMarker++) {
-            value = value.replaceFirst(
-                    "###SHIFTERMARKER" + indexMarker + "###",
-                    attributeGroupsSorted[indexMarker]);
+
+        // Stitch sorted runs and the text around them, in source order
+        StringBuilder sorted = new StringBuilder(value.length() + 16);
+        int offsetCopied = 0;
+        for (int index = 0; index < amountBlocks; index++) {
+            sorted.append(value, offsetCopied, blocksOffsets.get(index * 2));
+            if (null != changedRanges && !blocksSorted[index].equals(blocks[index])) {
+                changedRanges.add(new TextRange(sorted.length() - 1, sorted.length() + blocksSorted[index].length() + 1));
+            }
+            sorted.append(blocksSorted[index]);
+            offsetCopied = blocksOffsets.get(index * 2 + 1);
         }
+        sorted.append(value, offsetCopied, value.length());
 
-        return value;
+        return sorted.toString();
+    }
+
+    /**
+     * @param  value
+     * @return List<Integer>    Start and end offset (2 items per run) of each run of declarations inside a block: the
+     *                          whole content of a block between its braces, or (in blocks containing nested rules) the
+     *                          parts before, between and after the nested rules. In source order
+     */
+    private static List<Integer> getDeclarationRunsOffsets(String value) {
+        List<Integer> runsOffsets = new ArrayList<Integer>();
+
+        // Per block enclosing the current offset: start of its current run, and offset after its last statement
+        List<Integer> runStarts     = new ArrayList<Integer>();
+        List<Integer> statementEnds = new ArrayList<Integer>();
+
+        int length = value.length();
+        int offset = 0;
+        while (offset < length) {
+            int offsetAfterStringOrComment = skipStringOrComment(value, offset);
+            if (offsetAfterStringOrComment > offset) {
+                offset = offsetAfterStringOrComment;
+                continue;
+            }
+
+            char character = value.charAt(offset);
+            int depth = runStarts.size();
+            if ('{' == character) {
+                if (offset > 0 && '#' == value.charAt(offset - 1)) {
+                    // SCSS interpolation, ex: "#{$name}"
+                    offset = skipInterpolation(value, offset);
+                    continue;
+                }
+                if (depth > 0) {
+                    // Nested rule: the enclosing block's run ends before the line of its selector
+                    int runStart     = runStarts.get(depth - 1);
+                    int statementEnd = statementEnds.get(depth - 1);
+                    int runEnd       = getOffsetSelectorLineStart(value, statementEnd);
+                    addRun(runsOffsets, runStart, runEnd);
+                }
+                runStarts.add(offset + 1);
+                statementEnds.add(offset + 1);
+            } else if ('}' == character && depth > 0) {
+                addRun(runsOffsets, runStarts.remove(depth - 1), offset);
+                statementEnds.remove(depth - 1);
+                if (depth > 1) {
+                    // Enclosing block's next run starts after the nested rule
+                    runStarts.set(depth - 2, offset + 1);
+                    statementEnds.set(depth - 2, offset + 1);
+                }
+            } else if (';' == character && depth > 0) {
+                statementEnds.set(depth - 1, offset + 1);
+            }
+            offset++;
+        }
+
+        return runsOffsets;
+    }
+
+    /**
+     * @param  value
+     * @param  statementEnd     Offset after the last statement (or brace) preceding a nested rule's selector
+     * @return int              Offset of the start of the line of the selector, or the statement end if on the same line
+     */
+    private static int getOffsetSelectorLineStart(String value, int statementEnd) {
+        int offsetSelector = statementEnd;
+        while (offsetSelector < value.length() && Character.isWhitespace(value.charAt(offsetSelector))) {
+            offsetSelector++;
+        }
+
+        return Math.max(statementEnd, value.lastIndexOf('\n', offsetSelector - 1) + 1);
+    }
+
+    private static void addRun(List<Integer> runsOffsets, int runStart, int runEnd) {
+        if (runEnd > runStart) {
+            runsOffsets.add(runStart);
+            runsOffsets.add(runEnd);
+        }
+    }
+
+    /**
+     * @param  text
+     * @param  offset
+     * @return int      Offset after the string or comment that starts at the given offset, or the given offset if none starts there
+     */
+    private static int skipStringOrComment(String text, int offset) {
+        int length = text.length();
+        char character = text.charAt(offset);
+
+        if ('"' == character || '\'' == character) {
+            int offsetEnd = offset + 1;
+            while (offsetEnd < length && text.charAt(offsetEnd) != character && text.charAt(offsetEnd) != '\n') {
+                offsetEnd += text.charAt(offsetEnd) == '\\' ? 2 : 1;
+            }
+            return Math.min(offsetEnd + 1, length);
+        }
+        if ('/' == character && offset + 1 < length) {
+            if ('*' == text.charAt(offset + 1)) {
+                int offsetEnd = text.indexOf("*/", offset + 2);
+                return -1 == offsetEnd ? length : offsetEnd + 2;
+            }
+            // SCSS line comment, not e.g. "//" of an URL
+            if ('/' == text.charAt(offset + 1) && (0 == offset || " \t\r\n;{}".indexOf(text.charAt(offset - 1)) > -1)) {
+                int offsetEnd = text.indexOf('\n', offset);
+                return -1 == offsetEnd ? length : offsetEnd;
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * @param  text
+     * @param  offset   Offset of the opening brace
+     * @return int      Offset after the closing brace of the interpolation
+     */
+    private static int skipInterpolation(String text, int offset) {
+        int length = text.length();
+        int depth  = 0;
+        while (offset < length) {
+            int offsetAfterString = skipStringOrComment(text, offset);
+            if (offsetAfterString > offset) {
+                offset = offsetAfterString;
+                continue;
+            }
+            char character = text.charAt(offset++);
+            if ('{' == character) {
+                depth++;
+            } else if ('}' == character && --depth == 0) {
+                break;
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * Sort declarations of given block (content between its braces). Declarations spanning multiple lines (ex: values
+     * w/ parenthesis or comments) are kept together, comments preceding a declaration are moved along w/ it.
+     * Empty lines keep their position between the declarations. Single-line blocks remain unchanged.
+     *
+     * @param  block
+     * @return String
+     */
+    private static String sortDeclarationsBlock(String block) {
+        int length        = block.length();
+        int offsetFirstLF = block.indexOf('\n');
+        if (-1 == offsetFirstLF) {
+            return block;
+        }
+        int offsetLastLF = block.lastIndexOf('\n');
+
+        // Keep whitespace following the opening and preceding the closing brace
+        boolean isClosedOnOwnLine = block.substring(offsetLastLF + 1).trim().isEmpty();
+        int offsetBodyStart = block.substring(0, offsetFirstLF).trim().isEmpty() ? offsetFirstLF + 1 : 0;
+        int offsetBodyEnd   = isClosedOnOwnLine ? offsetLastLF + 1 : length;
+        if (offsetBodyStart >= offsetBodyEnd) {
+            return block;
+        }
+
+        List<String> declarations = new ArrayList<String>();
+        List<String> comments     = new ArrayList<String>();
+        StringBuilder comment     = new StringBuilder();
+        // Empty lines, by their position among declarations and empty lines
+        Map<Integer, String> blankLines = new HashMap<Integer, String>();
+
+        int offset      = offsetBodyStart;
+        int offsetUnit  = offsetBodyStart;
+        int parenthesis = 0;
+        while (offsetUnit < offsetBodyEnd) {
+            // Find end of the current unit: newline outside of strings, comments and parenthesis, or end of the body
+            int offsetAfterStringOrComment = skipStringOrComment(block, offset);
+            if (offsetAfterStringOrComment > offset) {
+                offset = Math.min(offsetAfterStringOrComment, offsetBodyEnd);
+                if (offset < offsetBodyEnd) {
+                    continue;
+                }
+            } else {
+                char character = block.charAt(offset++);
+                if ('(' == character) {
+                    parenthesis++;
+                } else if (')' == character && parenthesis > 0) {
+                    parenthesis--;
+                }
+                if (('\n' != character || parenthesis > 0 || isContinuedValue(block, offsetUnit, offset - 1)) && offset < offsetBodyEnd) {
+                    continue;
+                }
+            }
+
+            String unit = block.substring(offsetUnit, offset);
+            if (!unit.endsWith("\n")) {
+                unit += "\n";
+            }
+            offsetUnit = offset;
+
+            int offsetCodeEnd = getOffsetAfterCode(unit);
+            if (unit.trim().isEmpty()) {
+                // Empty lines keep their position between the (sorted) declarations
+                blankLines.put(declarations.size() + blankLines.size(), unit);
+            } else if (-1 == offsetCodeEnd) {
+                comment.append(unit);
+            } else {
+                if (';' != unit.charAt(offsetCodeEnd - 1)) {
+                    unit = unit.substring(0, offsetCodeEnd) + ";" + unit.substring(offsetCodeEnd);
+                }
+                declarations.add(unit);
+                comments.add(comment.toString());
+                comment.setLength(0);
+            }
+        }
+
+        StringBuilder sorted = new StringBuilder(length + declarations.size());
+        sorted.append(block, 0, offsetBodyStart);
+        int position = 0;
+        for (int index : new CssAttributesStyleLineComparator().getSortedIndices(declarations)) {
+            position = appendBlankLines(sorted, blankLines, position);
+            sorted.append(comments.get(index)).append(declarations.get(index));
+            position++;
+        }
+        appendBlankLines(sorted, blankLines, position);
+        // Comments not followed by a declaration remain at the end
+        sorted.append(comment);
+        if (!isClosedOnOwnLine) {
+            // Last declaration was followed by the closing brace, w/o newline
+            sorted.setLength(sorted.length() - 1);
+        }
+        sorted.append(block, offsetBodyEnd, length);
+
+        return sorted.toString();
+    }
+
+    /**
+     * @param  sorted
+     * @param  blankLines   Empty lines, by their position among declarations and empty lines
+     * @param  position     Position to append the empty lines from
+     * @return int          Position after the appended empty lines
+     */
+    private static int appendBlankLines(StringBuilder sorted, Map<Integer, String> blankLines, int position) {
+        while (blankLines.containsKey(position)) {
+            sorted.append(blankLines.get(position++));
+        }
+
+        return position;
+    }
+
+    /**
+     * @param  text
+     * @param  offsetStart
+     * @param  offsetEnd
+     * @return boolean      Does the given range end w/ a comma (ex: list of values continued in the next line)?
+     */
+    private static boolean isContinuedValue(String text, int offsetStart, int offsetEnd) {
+        while (offsetEnd > offsetStart && Character.isWhitespace(text.charAt(offsetEnd - 1))) {
+            offsetEnd--;
+        }
+
+        return offsetEnd > offsetStart && ',' == text.charAt(offsetEnd - 1);
+    }
+
+    /**
+     * @param  text
+     * @return int      Offset after the last character of given text that is neither whitespace nor part of a comment, -1 if there is none
+     */
+    private static int getOffsetAfterCode(String text) {
+        int offsetCodeEnd = -1;
+        int length        = text.length();
+        int offset        = 0;
+        while (offset < length) {
+            int offsetAfterStringOrComment = skipStringOrComment(text, offset);
+            if (offsetAfterStringOrComment > offset) {
+                if ('"' == text.charAt(offset) || '\'' == text.charAt(offset)) {
+                    offsetCodeEnd = offsetAfterStringOrComment;
+                }
+                offset = offsetAfterStringOrComment;
+                continue;
+            }
+            if (!Character.isWhitespace(text.charAt(offset))) {
+                offsetCodeEnd = offset + 1;
+            }
+            offset++;
+        }
+
+        return offsetCodeEnd;
     }
 
     /**
@@ -113,33 +444,7 @@ public class Css {
      * @return List<String>
      */
     private static List<String> sortAttributeStyles(List<String> list) {
-        Collections.sort(list, new CssAttributesStyleLineComparator());
+        new CssAttributesStyleLineComparator().sort(list);
         return list;
     }
-
-    /**
-     * Ensure that all attribute lines end w/ ";\n"
-     *
-     * @param  lines
-     * @return List<String>
-     */
-    private static List<String> prepareAttributeStyleLinesForConcat(List<String> lines) {
-        int index = 0;
-        for (String line : lines) {
-            String trimmed = trim(line);
-            if (!trimmed.isEmpty() && !trimmed.equals("}")) {
-                line = UtilsTextual.rtrim(line);
-
-                if (!line.endsWith(";")) {
-                    line = line + ";";
-                }
-                line = line + "\n";
-            }
-
-            lines.set(index, line);
-            index++;
-        }
-
-        return lines;
-    }
-}
\ No newline at end of file
+}
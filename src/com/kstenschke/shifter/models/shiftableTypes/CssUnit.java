@@ -16,7 +16,6 @@
 package com.kstenschke.shifter.models.shiftableTypes;
 
 import com.kstenschke.shifter.utils.UtilsMap;
-import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
@@ -39,6 +38,10 @@ public class CssUnit {
     private static final String UNIT_VMIN = "vmin";
     private static final String UNIT_VW   = "vw";
 
+    private static final String[] UNITS = new String[]{
+            UNIT_CM, UNIT_EM, UNIT_IN, UNIT_MM, UNIT_PC, UNIT_PT, UNIT_PX, UNIT_REM, UNIT_VW, UNIT_VH, UNIT_VMIN, UNIT_VMAX
+    };
+
     /**
      * @param  str      String to be checked
      * @return boolean  Does the given string represents a CSS length value?
@@ -104,22 +107,61 @@ public class CssUnit {
      * @param  stylesheet   CSS content
      * @return String       most prominently used unit of given stylesheet, 'px' if none used yet
      */
-    public static String determineMostProminentUnit(String stylesheet) {
-        HashMap<String, Integer> map = new HashMap<String, Integer>();
+    public static String determineMostProminentUnit(CharSequence stylesheet) {
+        return getMostProminentUnit(countUnitUsages(stylesheet));
+    }
 
-        map.put(UNIT_CM,   StringUtils.countMatches(stylesheet,UNIT_CM + ";"));
-        map.put(UNIT_EM,   StringUtils.countMatches(stylesheet,UNIT_EM + ";"));
-        map.put(UNIT_IN,   StringUtils.countMatches(stylesheet,UNIT_IN + ";"));
-        map.put(UNIT_MM,   StringUtils.countMatches(stylesheet,UNIT_MM + ";"));
-        map.put(UNIT_PC,   StringUtils.countMatches(stylesheet,UNIT_PC + ";"));
-        map.put(UNIT_PT,   StringUtils.countMatches(stylesheet,UNIT_PT + ";"));
-        map.put(UNIT_PX,   StringUtils.countMatches(stylesheet,UNIT_PX + ";"));
-        map.put(UNIT_REM,  StringUtils.countMatches(stylesheet,UNIT_REM + ";"));
-        map.put(UNIT_VW,   StringUtils.countMatches(stylesheet,UNIT_VW + ";"));
-        map.put(UNIT_VH,   StringUtils.countMatches(stylesheet,UNIT_VH + ";"));
-        map.put(UNIT_VMIN, StringUtils.countMatches(stylesheet,UNIT_VMIN + ";"));
-        map.put(UNIT_VMAX, StringUtils.countMatches(stylesheet,UNIT_VMAX + ";"));
+    private static String getMostProminentUnit(int[] amounts) {
+        HashMap<String, Integer> map = new HashMap<String, Integer>();
+        for (int i = 0; i < UNITS.length; i++) {
+            map.put(UNITS[i], amounts[i]);
+        }
 
         return UtilsMap.getSumOfValues(map) == 0 ? "px" : UtilsMap.getKeyOfHighestValue(map);
     }
-}
\ No newline at end of file
+
+    /**
+     * Count usages of all units (as "<unit>;") in one pass over the given stylesheet
+     *
+     * @param  stylesheet   CSS content
+     * @return int[]        Amount of usages per unit, indexed like UNITS
+     */
+    private static int[] countUnitUsages(CharSequence stylesheet) {
+        int[] amounts = new int[UNITS.length];
+        int length    = stylesheet.length();
+
+        for (int offset = 0; offset < length; offset++) {
+            if (stylesheet.charAt(offset) == ';') {
+                for (int i = 0; i < UNITS.length; i++) {
+                    if (endsWithAt(stylesheet, offset, UNITS[i])) {
+                        amounts[i]++;
+                    }
+                }
+            }
+        }
+
+        return amounts;
+    }
+
+    /**
+     * @param  str      Text to be checked
+     * @param  offset   Offset directly after the expected end of the needle
+     * @param  needle
+     * @return boolean  Does the given text contain the needle, ending right before the given offset?
+     */
+    private static boolean endsWithAt(CharSequence str, int offset, String needle) {
+        int needleLength = needle.length();
+        if (offset < needleLength) {
+            return false;
+        }
+
+        int offsetStart = offset - needleLength;
+        for (int i = 0; i < needleLength; i++) {
+            if (str.charAt(offsetStart + i) != needle.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -16,8 +16,8 @@
 package com.kstenschke.shifter.models.shiftableTypes;
 
 import com.kstenschke.shifter.utils.UtilsArray;
+import com.kstenschke.shifter.utils.UtilsJavaScript;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -87,10 +87,11 @@ public class DocCommentTag {
      * @param  word             String to be shifted
      * @param  isUp             Shift up or down?
      * @param  filename         Filename of the edited file
-     * @param  textAfterCaret   Document text after the caret
+     * @param  editorText       Document text
+     * @param  caretOffset      Offset of the caret, declarations are looked up after it
      * @return Shifting result
      */
-    public String getShifted(String word, boolean isUp, String filename, String textAfterCaret) {
+    public String getShifted(String word, boolean isUp, String filename, CharSequence editorText, int caretOffset) {
         String[] commentTags = this.getTagsByFilename(filename);
         int amountTags = commentTags.length;
         if (amountTags > 0) {
@@ -101,7 +102,9 @@ public class DocCommentTag {
                 curIndex           = NumericValue.moduloShiftInteger(curIndex, amountTags, isUp);
                 String shiftedWord = commentTagsList.get(curIndex);
                 if ("method".equals(shiftedWord)) {
-                    shiftedWord = shiftedWord + parseNextMethod(textAfterCaret);
+                    shiftedWord = shiftedWord + getDeclarationNameSuffix(UtilsJavaScript.findNextMethodName(editorText, caretOffset));
+                } else if ("class".equals(shiftedWord)) {
+                    shiftedWord = shiftedWord + getDeclarationNameSuffix(UtilsJavaScript.findNextClassName(editorText, caretOffset));
                 }
 
                 return shiftedWord;
@@ -112,25 +115,11 @@ public class DocCommentTag {
     }
 
     /**
-     * Find first JavaScript function's name out of given code
-     *
-     * @param  jsCode JavaScript source code to be analyzed
-     * @return String JavaScript method name
+     * @param  name     Name of declared method or class, or null
+     * @return String   Tab-prefixed name to be appended to the doc comment tag
      */
-    private String parseNextMethod(String jsCode) {
-        List<String> allMatches = new ArrayList<String>();
-
-        String regExPattern = "[a-zA-Z_$][0-9a-zA-Z_$]*\\s*:\\s*function";
-        Matcher m           = Pattern.compile(regExPattern).matcher(jsCode);
-        while (m.find()) {
-            if (!allMatches.contains(m.group())) {
-                allMatches.add(m.group());
-            }
-        }
-
-        return allMatches.isEmpty()
-                ? ""
-                : "\t" + (allMatches.get(0).replace("function", "").replace(":", "").trim());
+    private String getDeclarationNameSuffix(String name) {
+        return null == name ? "" : "\t" + name;
     }
 
     /**
@@ -17,9 +17,11 @@ package com.kstenschke.shifter.models.shiftableTypes;
 
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.utils.DataTypeGuesser;
 import com.kstenschke.shifter.utils.UtilsEnvironment;
-import com.kstenschke.shifter.utils.UtilsPhp;
 import com.kstenschke.shifter.utils.UtilsTextual;
+import org.jetbrains.annotations.Nullable;
 
 import static org.apache.commons.lang.StringUtils.trim;
 
@@ -188,12 +190,12 @@ public class JsDoc {
         int index = 0;
         for (String line : lines) {
             if (isAtParamLine(line)) {
-                line = correctAtParamLine(line);
+                line = correctAtParamLine(line, editor.getProject());
             } else if (isInvalidAtReturnsLine(line)) {
                 line = line.replace("@return ", "@returns ");
             }
             if (isAtReturnsLine(line)) {
-                line = correctAtReturnsLine(line);
+                line = correctAtReturnsLine(line, editor.getProject());
             }
 
             docBlockCorrected += (index > 0 ? "\n" : "") + line;
@@ -210,7 +212,12 @@ public class JsDoc {
         return false;
     }
 
-    public static String correctAtParamLine(String line) {
+    /**
+     * @param  line
+     * @param  project  Project whose custom data type guessing rules are used, or null
+     * @return String
+     */
+    public static String correctAtParamLine(String line, @Nullable Project project) {
         if (!containsCompounds(line) && containsDataType(line, " ", true)) {
             line = addCompoundsToDataType(line, "@param", true);
         }
@@ -219,10 +226,10 @@ public class JsDoc {
 
         return containsDataType(line, "{", false)
             ? line
-            : addDataType(line);
+            : addDataType(line, project);
     }
 
-    private static String correctAtReturnsLine(String line) {
+    private static String correctAtReturnsLine(String line, @Nullable Project project) {
         if (containsDataType(line, " ", true) && !containsCompounds(line)) {
             line = addCompoundsToDataType(line, "@returns", true);
         }
@@ -230,7 +237,7 @@ public class JsDoc {
 
         return containsDataType(line, "{", false)
                 ? line
-                : addDataType(line);
+                : addDataType(line, project);
     }
 
     private static String correctInvalidDataTypes(String line, String lhs, String rhs) {
@@ -262,30 +269,16 @@ public class JsDoc {
         return blockCleaned;
     }
 
-    private static String addDataType(String line) {
+    private static String addDataType(String line, @Nullable Project project) {
         String parameterName = trim(trim(line.replaceAll("\\*", "")).replace("@param", "").replace("@returns", ""));
 
         return parameterName.isEmpty()
                 ? line
-                : line.replace(parameterName, guessDataType(parameterName) + " " + parameterName);
+                : line.replace(parameterName, guessDataType(parameterName, project) + " " + parameterName);
     }
 
-    private static String guessDataType(String parameterName) {
-        String dataType = null;
-        if (parameterName.startsWith("$") || parameterName.matches("(?i)(\\w*element)")) {
-            dataType = "*";
-        } else if (parameterName.matches("(?i)(\\w*date\\w*)")) {
-            dataType = "Date";
-        } else if (parameterName.matches("(?i)(\\w*obj\\w*)")) {
-            dataType = "Object";
-        } else if (parameterName.length() == 1) {
-            // e.g. x, y, i, etc.
-            dataType = "number";
-        }
-
-        if (null == dataType) {
-            dataType = UtilsPhp.guessPhpDataTypeByName(parameterName);
-        }
+    private static String guessDataType(String parameterName, @Nullable Project project) {
+        String dataType = DataTypeGuesser.guessJsDataType(parameterName, project);
 
         return "{" + correctInvalidDataTypes(dataType, "", "") + "}";
     }
@@ -15,69 +15,307 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
-import org.apache.commons.lang.StringUtils;
-import org.jetbrains.annotations.NotNull;
+import com.kstenschke.shifter.utils.UtilsFile;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * JavaScript Variables (multi-lined declarations of multiple vars)
+ * JavaScript Variables (declarations of multiple vars, via "var", "let" or "const"):
+ * multiple declaration statements are merged into one, a single statement declaring multiple variables is split into
+ * one statement per variable. The selection is scanned once, strings / comments / brackets do not separate declarations.
+ * Outside of JavaScript / TypeScript files (where ex: "let" can declare a single variable only), only multiple "var"
+ * statements are merged.
  */
 public class JsVariablesDeclarations {
 
+    private static final String[] KEYWORDS = {"var", "let", "const"};
+
+    private static final String[] KEYWORDS_NON_JS = {"var"};
+
+    private static final int PART_DECLARATION    = 0;
+    private static final int PART_COMMENT        = 1;
+    private static final int PART_COMMENT_INLINE = 2;
+    private static final int PART_EMPTY_LINE     = 3;
+
+    /**
+     * Declarations (w/o keyword and delimiter), comments and empty lines of the scanned statements, in order
+     */
+    private static class Declarations {
+        String keyword = null;
+        int amountStatements   = 0;
+        int amountDeclarations = 0;
+
+        final List<String> parts     = new ArrayList<String>();
+        final List<Integer> partTypes = new ArrayList<Integer>();
+
+        void addPart(String part, int partType) {
+            parts.add(part);
+            partTypes.add(partType);
+            if (PART_DECLARATION == partType) {
+                amountDeclarations++;
+            }
+        }
+
+        /**
+         * @return boolean  Merge multiple statements into one? Otherwise: split one statement into multiple
+         */
+        boolean isMerge() {
+            return amountStatements > 1;
+        }
+
+        boolean isShiftable() {
+            return amountStatements > 1 || amountDeclarations > 1;
+        }
+    }
+
     /**
-     * Check whether given string represents a declaration of (multiple) JS variables:
-     * -selection has multiple lines
-     * -each trimmed line starts w/ "var" (at least 2 occurrences)
-     * -each trimmed line ends w/ ";"
+     * Check whether given string represents declarations of (multiple) JS variables:
+     * -multiple statements, each starting w/ the same keyword ("var", "let" or "const") and ending w/ ";"
+     * -or one such statement, declaring multiple variables
      * -there can be empty lines
-     * -there can commented lines, beginning w/ "//"
+     * -there can be comments, in own lines or following the declarations
+     * Outside of JavaScript / TypeScript files: only multiple statements starting w/ "var"
      *
-     * @param  str     String to be checked
+     * @param  str      String to be checked
+     * @param  filename Name of edited file
      * @return boolean
      */
-    public static Boolean isJsVariables(String str) {
-        str = str.trim();
-        return !(!str.startsWith("var")
-              || !str.endsWith(";")
-              || !str.contains("\n")
-              || StringUtils.countMatches(str, "var") < 2
-              || StringUtils.countMatches(str, ";") < 2
-        );
+    public static Boolean isJsVariables(String str, @Nullable String filename) {
+        return null != scanShiftable(str, filename);
     }
 
     /**
      * @param  str      text selection to be shifted
-     * @return String
+     * @param  filename Name of edited file
+     * @return String   Declarations merged into one statement, or split into one statement per variable
+     */
+    public static String getShifted(String str, @Nullable String filename) {
+        Declarations declarations = scanShiftable(str, filename);
+        if (null == declarations) {
+            return str;
+        }
+
+        int offsetStart = 0;
+        while (offsetStart < str.length() && Character.isWhitespace(str.charAt(offsetStart))) {
+            offsetStart++;
+        }
+        int offsetEnd = str.length();
+        while (offsetEnd > offsetStart && Character.isWhitespace(str.charAt(offsetEnd - 1))) {
+            offsetEnd--;
+        }
+
+        String leadWhitespace = str.substring(0, offsetStart);
+        String indent         = leadWhitespace.substring(leadWhitespace.lastIndexOf('\n') + 1);
+        boolean isMerge       = declarations.isMerge();
+
+        int indexLastDeclaration = declarations.partTypes.lastIndexOf(PART_DECLARATION);
+        boolean isFirstDeclaration = true;
+
+        StringBuilder shifted = new StringBuilder(str.length() + declarations.amountDeclarations * (declarations.keyword.length() + 2));
+        shifted.append(leadWhitespace);
+        for (int index = 0; index < declarations.parts.size(); index++) {
+            String part  = declarations.parts.get(index);
+            int partType = declarations.partTypes.get(index);
+
+            if (PART_COMMENT_INLINE == partType) {
+                shifted.append(' ').append(part);
+                continue;
+            }
+            if (index > 0) {
+                shifted.append('\n');
+                if (PART_EMPTY_LINE == partType) {
+                    continue;
+                }
+                shifted.append(indent).append(isMerge ? "\t" : "");
+            }
+            if (PART_COMMENT == partType) {
+                shifted.append(part);
+                continue;
+            }
+
+            if (isFirstDeclaration || !isMerge) {
+                shifted.append(declarations.keyword).append(' ');
+            }
+            shifted.append(part).append(isMerge && index != indexLastDeclaration ? ',' : ';');
+            isFirstDeclaration = false;
+        }
+
+        return shifted.append(str, offsetEnd, str.length()).toString();
+    }
+
+    /**
+     * @param  str
+     * @param  filename
+     * @return Declarations     Null if the string is no shiftable sequence of declarations, within the given file
+     */
+    @Nullable
+    private static Declarations scanShiftable(String str, @Nullable String filename) {
+        if (UtilsFile.isJavaScriptFile(filename)) {
+            Declarations declarations = scan(str, KEYWORDS);
+
+            return null != declarations && declarations.isShiftable() ? declarations : null;
+        }
+
+        Declarations declarations = scan(str, KEYWORDS_NON_JS);
+
+        return null != declarations && declarations.isMerge() ? declarations : null;
+    }
+
+    /**
+     * Scan given string for declaration statements, in one pass
+     *
+     * @param  str
+     * @param  keywords         Declaration keywords to detect
+     * @return Declarations     Null if the string is not a sequence of declarations (w/ the same keyword)
+     */
+    @Nullable
+    private static Declarations scan(String str, String[] keywords) {
+        int offsetEnd = str.length();
+        while (offsetEnd > 0 && Character.isWhitespace(str.charAt(offsetEnd - 1))) {
+            offsetEnd--;
+        }
+        int offset = 0;
+        while (offset < offsetEnd && Character.isWhitespace(str.charAt(offset))) {
+            offset++;
+        }
+        if (null == getKeywordAt(str, offset, offsetEnd, keywords)) {
+            return null;
+        }
+
+        Declarations declarations = new Declarations();
+
+        boolean isStatementStart   = true;
+        int offsetDeclaration      = -1;
+        int depth                  = 0;
+        // Newlines since the last declaration delimiter or comment
+        int amountNewlines         = 0;
+        while (offset < offsetEnd) {
+            char character = str.charAt(offset);
+
+            if (-1 == offsetDeclaration) {
+                // Between declarations
+                if (Character.isWhitespace(character)) {
+                    if ('\n' == character) {
+                        amountNewlines++;
+                    }
+                    offset++;
+                    continue;
+                }
+                int offsetAfterComment = getOffsetAfterComment(str, offset, offsetEnd);
+                if (offsetAfterComment > offset) {
+                    boolean isInline = 0 == amountNewlines && !declarations.parts.isEmpty();
+                    addEmptyLines(declarations, amountNewlines);
+                    declarations.addPart(str.substring(offset, offsetAfterComment).trim(), isInline ? PART_COMMENT_INLINE : PART_COMMENT);
+                    amountNewlines = 0;
+                    offset         = offsetAfterComment;
+                    continue;
+                }
+                addEmptyLines(declarations, amountNewlines);
+                amountNewlines = 0;
+                if (isStatementStart) {
+                    String keyword = getKeywordAt(str, offset, offsetEnd, keywords);
+                    if (null == keyword || (null != declarations.keyword && !keyword.equals(declarations.keyword))) {
+                        return null;
+                    }
+                    declarations.keyword = keyword;
+                    declarations.amountStatements++;
+                    isStatementStart = false;
+                    offset += keyword.length();
+                    continue;
+                }
+                offsetDeclaration = offset;
+            }
+
+            int offsetAfter = getOffsetAfterStringOrComment(str, offset, offsetEnd);
+            if (offsetAfter > offset) {
+                offset = offsetAfter;
+                continue;
+            }
+            if ('(' == character || '[' == character || '{' == character) {
+                depth++;
+            } else if (')' == character || ']' == character || '}' == character) {
+                if (--depth < 0) {
+                    return null;
+                }
+            } else if (0 == depth && (',' == character || ';' == character)) {
+                String declaration = str.substring(offsetDeclaration, offset).trim();
+                if (declaration.isEmpty()) {
+                    return null;
+                }
+                declarations.addPart(declaration, PART_DECLARATION);
+                offsetDeclaration = -1;
+                isStatementStart  = ';' == character;
+            }
+            offset++;
+        }
+
+        // Last statement must be complete, ending w/ ";"
+        return isStatementStart && -1 == offsetDeclaration ? declarations : null;
+    }
+
+    private static void addEmptyLines(Declarations declarations, int amountNewlines) {
+        for (int amount = 1; amount < amountNewlines; amount++) {
+            declarations.addPart("", PART_EMPTY_LINE);
+        }
+    }
+
+    /**
+     * @param  str
+     * @param  offset
+     * @param  offsetEnd
+     * @param  keywords
+     * @return String       Declaration keyword (followed by whitespace) at the given offset, or null
      */
-    public static String getShifted(String str) {
-        String[] lines = str.split("\n");
-        String shiftedLines = "";
+    @Nullable
+    private static String getKeywordAt(String str, int offset, int offsetEnd, String[] keywords) {
+        for (String keyword : keywords) {
+            int offsetAfter = offset + keyword.length();
+            if (offsetAfter < offsetEnd && str.startsWith(keyword, offset) && Character.isWhitespace(str.charAt(offsetAfter))) {
+                return keyword;
+            }
+        }
 
-        int lineNumber = 0;
-        String shiftedLine;
-        for(String line : lines) {
-            line = line.trim();
-            shiftedLine = line.isEmpty() || line.startsWith("//") ? line : shiftNonCommentLine(line);
-            shiftedLines += (lineNumber == 0 ? "" : "\t") + shiftedLine + "\n";
-            lineNumber++;
+        return null;
+    }
+
+    /**
+     * @return int      Offset after the comment ("//..." until end of line, or "/*...*\/") starting at the given offset,
+     *                  or the given offset if none starts there
+     */
+    private static int getOffsetAfterComment(String str, int offset, int offsetEnd) {
+        if ('/' != str.charAt(offset) || offset + 1 >= offsetEnd) {
+            return offset;
+        }
+        char next = str.charAt(offset + 1);
+        if ('/' == next) {
+            int offsetNewline = str.indexOf('\n', offset);
+            return -1 == offsetNewline || offsetNewline > offsetEnd ? offsetEnd : offsetNewline;
+        }
+        if ('*' == next) {
+            int offsetCommentEnd = str.indexOf("*/", offset + 2);
+            return -1 == offsetCommentEnd || offsetCommentEnd + 2 > offsetEnd ? offsetEnd : offsetCommentEnd + 2;
         }
 
-        return "var " + shiftedLines.substring(0, shiftedLines.length()-2) + ";";
+        return offset;
     }
 
-    @NotNull
-    private static String shiftNonCommentLine(String line) {
-        String shiftedLine;
-        // Remove "var " from beginning
-        line = line.substring(4);
+    /**
+     * @return int      Offset after the string literal (quoted or template) or comment starting at the given offset,
+     *                  or the given offset if none starts there
+     */
+    private static int getOffsetAfterStringOrComment(String str, int offset, int offsetEnd) {
+        char character = str.charAt(offset);
+        if ('"' == character || '\'' == character || '`' == character) {
+            int offsetQuoteEnd = offset + 1;
+            while (offsetQuoteEnd < offsetEnd && str.charAt(offsetQuoteEnd) != character) {
+                offsetQuoteEnd += '\\' == str.charAt(offsetQuoteEnd) ? 2 : 1;
+            }
 
-        // Replace ";" from ending by ",\n"
-        if (StringUtils.countMatches(line, "//") == 1) {
-            // Handle line ending w/ comment intact
-            String[] parts = line.split("//");
-            parts[0] = parts[0].trim();
-            return parts[0].substring(0, parts[0].length() - 1) + ", //" + parts[1];
+            return Math.min(offsetQuoteEnd + 1, offsetEnd);
         }
 
-        return line.substring(0, line.length() - 1) + ",";
+        return getOffsetAfterComment(str, offset, offsetEnd);
     }
-}
\ No newline at end of file
+}
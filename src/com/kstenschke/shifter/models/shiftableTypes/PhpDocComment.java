@@ -15,6 +15,9 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
 import static org.apache.commons.lang.StringUtils.trim;
 
 public class PhpDocComment {
@@ -42,9 +45,10 @@ public class PhpDocComment {
 
     /**
      * @param  str
+     * @param  project  Project whose custom data type guessing rules are used, or null
      * @return String
      */
-    public static String getShifted(String str) {
+    public static String getShifted(String str, @Nullable Project project) {
         String lines[] = str.split("\n");
         String shifted = "";
 
@@ -52,7 +56,7 @@ public class PhpDocComment {
         for (String line : lines) {
             if (containsAtParam(line) && !PhpDocParam.containsDataType(line) && PhpDocParam.containsVariableName(line)) {
                 // PHP doc @param comment that contains variable name but no data type: guess data type by variable name
-                line = PhpDocParam.getShifted(line);
+                line = PhpDocParam.getShifted(line, project);
             }
             shifted += line + (indexLine < lines.length ? "\n" : "");
             indexLine++;
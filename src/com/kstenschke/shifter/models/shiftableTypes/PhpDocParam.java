@@ -20,6 +20,8 @@ import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.utils.UtilsEnvironment;
 import com.kstenschke.shifter.utils.UtilsPhp;
+import org.jetbrains.annotations.Nullable;
+
 import static org.apache.commons.lang.StringUtils.trim;
 
 /**
@@ -68,12 +70,13 @@ public class PhpDocParam {
      * Guess (by variable name) and insert data type
      *
      * @param  line     e.g. "* @param $var"
+     * @param  project  Project whose custom data type guessing rules are used, or null
      * @return string
      */
-    public static String getShifted(String line) {
+    public static String getShifted(String line, @Nullable Project project) {
         String variableName = trim(extractVariableName(line).toLowerCase().replace("$", ""));
 
-        return insertDataTypeIntoParamLine(line, UtilsPhp.guessPhpDataTypeByName(variableName));
+        return insertDataTypeIntoParamLine(line, UtilsPhp.guessPhpDataTypeByName(variableName, project));
     }
 
     private static String insertDataTypeIntoParamLine(String line, String dataType) {
@@ -82,7 +85,7 @@ public class PhpDocParam {
 
     public static boolean shiftSelectedPhpDocInDocument(Editor editor, Document document, Project project, int offsetStart, int offsetEnd, String selectedText) {
         if (PhpDocComment.isPhpDocComment(selectedText) && PhpDocComment.containsAtParam(selectedText)) {
-            String shifted = PhpDocComment.getShifted(selectedText);
+            String shifted = PhpDocComment.getShifted(selectedText, project);
             if (!shifted.equals(selectedText)) {
                 // PHP DOC comment block: guess missing data shiftableTypes by resp. variable names
                 document.replaceString(offsetStart, offsetEnd, shifted);
@@ -95,7 +98,7 @@ public class PhpDocParam {
           && isPhpDocParamLine(selectedText)
           && !containsDataType(selectedText)) {
             String variableName = trim(extractVariableName(selectedText).toLowerCase().replace("$", ""));
-            String dataType     = UtilsPhp.guessPhpDataTypeByName(variableName);
+            String dataType     = UtilsPhp.guessPhpDataTypeByName(variableName, project);
             if (!dataType.equals("unknown")) {
                 // PHP DOC @param line w/o data type, e.g. "* @param $name"
                 document.replaceString(offsetStart, offsetEnd, insertDataTypeIntoParamLine(selectedText, dataType));
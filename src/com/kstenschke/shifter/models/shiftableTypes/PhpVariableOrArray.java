@@ -15,13 +15,19 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
+import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.ShifterPreferences;
-import com.kstenschke.shifter.utils.UtilsPhp;
-import com.kstenschke.shifter.utils.UtilsTextual;
+import com.kstenschke.shifter.models.DocumentAnalysis;
+import com.kstenschke.shifter.models.VocabularyIndex;
+import com.kstenschke.shifter.utils.PhpArraysConverter;
+import com.kstenschke.shifter.utils.UtilsArray;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * PHP Variable (word w/ $ prefix), includes array definition (toggle long versus shorthand syntax)
@@ -72,8 +78,9 @@ public class PhpVariableOrArray {
             return false;
         }
 
-        this.isConventionalArray = str.matches("(array\\s*\\()((.|\\n|\\r|\\s)*)(\\)(;)*)");
-        boolean isShorthandArray = !this.isConventionalArray && str.matches("(\\[)((.|\\n|\\r|\\s)*)(])(;)*");
+        int arraySyntax = PhpArraysConverter.getArraySyntax(str);
+        this.isConventionalArray = arraySyntax == PhpArraysConverter.SYNTAX_LONG;
+        boolean isShorthandArray = arraySyntax == PhpArraysConverter.SYNTAX_SHORT;
 
         return (isActiveConvertLongToShort && this.isConventionalArray) || (isActiveConvertShortToLong && isShorthandArray);
     }
@@ -86,8 +93,9 @@ public class PhpVariableOrArray {
             return false;
         }
 
-        boolean isConventionalArray = str.matches("(array\\s*\\()((.|\\n|\\r|\\s)*)(\\)(;)*)");
-        boolean isShorthandArray = !isConventionalArray && str.matches("(\\[)((.|\\n|\\r|\\s)*)(])(;)*");
+        int arraySyntax = PhpArraysConverter.getArraySyntax(str);
+        boolean isConventionalArray = arraySyntax == PhpArraysConverter.SYNTAX_LONG;
+        boolean isShorthandArray = arraySyntax == PhpArraysConverter.SYNTAX_SHORT;
 
         return (isActiveConvertLongToShort && isConventionalArray) || (isActiveConvertShortToLong && isShorthandArray);
     }
@@ -95,23 +103,49 @@ public class PhpVariableOrArray {
     /**
      * Shift PX value up/down by 16px
      *
-     * @param  variable     Variable name string
-     * @param  editorText   Text of edited document
-     * @param  isUp         Shift up or down?
-     * @param  moreCount    Current "more" count, starting w/ 1. If non-more shift: null
+     * @param  variable         Variable name string
+     * @param  documentAnalysis Analysis of the edited document
+     * @param  caretOffset      Offset of the caret in the document
+     * @param  isUp             Shift up or down?
+     * @param  moreCount        Current "more" count, starting w/ 1. If non-more shift: null
+     * @param  project          Project to shift among the variables of all its files, if configured. Nullable
      * @return String
      */
-    public String getShifted(String variable, CharSequence editorText, Boolean isUp, Integer moreCount) {
+    public String getShifted(String variable, DocumentAnalysis documentAnalysis, int caretOffset, Boolean isUp, Integer moreCount, @Nullable Project project) {
         if (this.isShiftableArray) {
             return getShiftedArray(variable);
         }
 
         // Extract array of all PHP var names
-        String text = editorText.toString();
-        List<String> phpVariables = UtilsPhp.extractPhpVariables(text);
+        List<String> phpVariables = documentAnalysis.getPhpVariables(caretOffset, project);
+        Set<String> documentVariables = null;
+        if (null != project && ShifterPreferences.getIsActiveProjectScopeVocabulary()) {
+            // Add variables of all files of the project, as known to the vocabulary index
+            documentVariables = new HashSet<String>(phpVariables);
+            phpVariables      = UtilsArray.mergeLists(phpVariables, VocabularyIndex.getPhpVariables(project));
+        }
 
         // Sort var names alphabetically
         Collections.sort(phpVariables);
+
+        while (true) {
+            String shifted = getShiftedVariable(phpVariables, variable, isUp, moreCount);
+            if (null == documentVariables || shifted.equals(variable) || documentVariables.contains(shifted) || VocabularyIndex.isContainedInProject(project, "$", shifted)) {
+                return shifted;
+            }
+            // Outdated variable of the project's vocabulary
+            phpVariables.remove(shifted);
+        }
+    }
+
+    /**
+     * @param  phpVariables     All variable names, sorted alphabetically
+     * @param  variable         Variable name string
+     * @param  isUp             Shift up or down?
+     * @param  moreCount        Current "more" count, starting w/ 1. If non-more shift: null
+     * @return String
+     */
+    private String getShiftedVariable(List<String> phpVariables, String variable, Boolean isUp, Integer moreCount) {
         List<String> allLeadChars = null;
         if (moreCount != null && moreCount == 1) {
             // During "shift more": iterate over variables reduced to first per every lead-character
@@ -173,11 +207,9 @@ public class PhpVariableOrArray {
 
     /**
      * @param  variable
-     * @return String   converted array(...) <=> [...]
+     * @return String   converted array(...) <=> [...], incl. nested arrays of the same syntax
      */
     public String getShiftedArray(String variable) {
-        return this.isConventionalArray
-            ? UtilsTextual.replaceLast(variable.replaceFirst("array", "[").replaceFirst("\\(", ""), ")", "]")
-            : UtilsTextual.replaceLast(variable.replaceFirst("\\[", "array("), "]", ")");
+        return PhpArraysConverter.convert(variable, this.isConventionalArray);
     }
 }
\ No newline at end of file
@@ -15,11 +15,17 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
+import com.intellij.openapi.project.Project;
 import com.kstenschke.shifter.ShifterPreferences;
-import com.kstenschke.shifter.utils.UtilsTextual;
+import com.kstenschke.shifter.models.DocumentAnalysis;
+import com.kstenschke.shifter.models.VocabularyIndex;
+import com.kstenschke.shifter.utils.UtilsArray;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Quoted String.
@@ -56,24 +62,39 @@ public class QuotedString {
     /**
      * Shift to previous/next quoted string
      *
-     * @param  word       Quoted word to be shifted
-     * @param  editorText Full text of editor
-     * @param  isUp       Shifting up or down?
+     * @param  word             Quoted word to be shifted
+     * @param  documentAnalysis Analysis of the edited document
+     * @param  caretOffset      Offset of the caret in the document
+     * @param  isUp             Shifting up or down?
+     * @param  project          Project to shift among the quoted strings of all its files, if configured. Nullable
      * @return String
      */
-    public String getShifted(String word, CharSequence editorText, boolean isUp) {
+    public String getShifted(String word, DocumentAnalysis documentAnalysis, int caretOffset, boolean isUp, @Nullable Project project) {
         // Get array of all strings wrapped in current quoting sign
-        String text = editorText.toString();
-        List<String> allMatches = UtilsTextual.extractQuotedStrings(text, this.quoteChar);
+        List<String> allMatches = documentAnalysis.getQuotedStrings(this.quoteChar, caretOffset, project);
+        Set<String> documentMatches = null;
+        if (null != project && ShifterPreferences.getIsActiveProjectScopeVocabulary()) {
+            // Add strings of all files of the project, as known to the vocabulary index
+            documentMatches = new HashSet<String>(allMatches);
+            allMatches      = UtilsArray.mergeLists(allMatches, VocabularyIndex.getQuotedStrings(project, this.quoteChar));
+        }
 
         // Sort var names alphabetically
         Collections.sort(allMatches);
-        int amountVars = allMatches.size();
 
-        // Find position of given variable, return next/previous variable name
-        int curIndex = allMatches.indexOf(word);
-        curIndex     = NumericValue.moduloShiftInteger(curIndex, amountVars, isUp);
+        while (!allMatches.isEmpty()) {
+            // Find position of given variable, return next/previous variable name
+            int curIndex = allMatches.indexOf(word);
+            curIndex     = NumericValue.moduloShiftInteger(curIndex, allMatches.size(), isUp);
 
-        return allMatches.get(curIndex);
+            String shifted = allMatches.get(curIndex);
+            if (null == documentMatches || documentMatches.contains(shifted) || VocabularyIndex.isContainedInProject(project, this.quoteChar, shifted)) {
+                return shifted;
+            }
+            // Outdated string of the project's vocabulary
+            allMatches.remove(curIndex);
+        }
+
+        return word;
     }
 }
\ No newline at end of file
@@ -15,67 +15,85 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
+import com.kstenschke.shifter.ShifterPreferences;
 import com.kstenschke.shifter.models.comparators.AlphanumComparator;
 import com.kstenschke.shifter.resources.StaticTexts;
 import com.kstenschke.shifter.utils.UtilsArray;
-import com.kstenschke.shifter.utils.UtilsTextual;
-import org.apache.commons.lang.StringUtils;
 
 import javax.swing.*;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 /**
- * Quoted String.
+ * Separated List (ex: "b, a, c" or "x|y"). Items are tokenized in one pass: delimiters within quoted strings or
+ * parenthesis / brackets / braces (ex: function call arguments, nested arrays) do not separate items.
  */
 public class SeparatedList {
 
+    /**
+     * Items of a list, and the text around them. Separators (delimiters incl. their surrounding whitespace) keep their
+     * position when the items are reordered.
+     */
+    static class Tokens {
+        String prefix = "";
+        String suffix = "";
+        final List<String> items      = new ArrayList<String>();
+        final List<String> separators = new ArrayList<String>();
+
+        String implode(List<String> items) {
+            StringBuilder list = new StringBuilder(prefix);
+            for (int index = 0; index < items.size(); index++) {
+                if (index > 0) {
+                    list.append(separators.get(index - 1));
+                }
+                list.append(items.get(index));
+            }
+
+            return list.append(suffix).toString();
+        }
+    }
+
     public static boolean isSeparatedList(String word) {
         return isSeparatedList(word, ",");
     }
 
+    /**
+     * @param  str
+     * @param  delimiter
+     * @return boolean      Does the given string contain at least two items separated by the given delimiter?
+     *                      (ex: a quoted string containing the delimiter is not a list, but quoted items separated by it are)
+     */
     public static boolean isSeparatedList(String str, String delimiter) {
-        if (!str.contains(delimiter)) {
-            return false;
-        }
-
-        // If the string is quoted: detect whether items are quoted each
-        // => there must be (amountCommas+1)*2 quotes altogether
-        // Ex:  "a","b"         => 1 comma, 4 quotes
-        //      "a","b","c","d" => 3 commas, 8 quotes
-        // Otherwise it should be treated as a quoted string and not as a list.
-        if (UtilsTextual.isWrappedIntoQuotes(str)) {
-            String quoteChar     = str.substring(0, 1);
-            int amountQuotes     = StringUtils.countMatches(str, quoteChar);
-            int amountDelimiters = StringUtils.countMatches(str, delimiter);
-
-            if (amountQuotes != (amountDelimiters + 1) * 2) {
-                return false;
-            }
-        }
+        return str.contains(delimiter) && tokenize(str, delimiter).items.size() > 1;
+    }
 
-        return true;
+    /**
+     * @param  str
+     * @param  delimiter
+     * @return int          Amount of items of the given list
+     */
+    public static int countItems(String str, String delimiter) {
+        return tokenize(str, delimiter).items.size();
     }
 
     /**
      * @param  selectedText
-     * @param  delimiterSplitPattern
-     * @param  delimiterGlue
+     * @param  delimiter
      * @param  sortAscending
      * @return Given delimiter separated list, sorted (natural) alphabetically ascending / descending
      */
-    public static String sortSeparatedList(String selectedText, String delimiterSplitPattern, String delimiterGlue, boolean sortAscending) {
-        String[] items = selectedText.split(delimiterSplitPattern);
+    public static String sortSeparatedList(String selectedText, String delimiter, boolean sortAscending) {
+        Tokens tokens = tokenize(selectedText, delimiter);
+        List<String> items = tokens.items;
 
-        if (items.length == 2) {
+        if (items.size() == 2) {
             // Only 2 items: treat as tupel - always toggle order
-            return items[1] + delimiterGlue + items[0];
+            Collections.reverse(items);
+            return tokens.implode(items);
         }
 
-        List itemsList = Arrays.asList(items);
-        // @note sorting itemsList, does also update items
-        Collections.sort(itemsList, new AlphanumComparator());
+        new AlphanumComparator(ShifterPreferences.getSortingMode()).sort(items);
 
         if (UtilsArray.hasDuplicateItems(items) && JOptionPane.showConfirmDialog(
                 null,
@@ -87,20 +105,131 @@ public class SeparatedList {
         }
 
         if (!sortAscending) {
-            Collections.reverse(Arrays.asList(items));
+            Collections.reverse(items);
+        }
+
+        return tokens.implode(items);
+    }
+
+    /**
+     * Split given list into items, separators and surrounding whitespace (and brackets, if the whole list is wrapped
+     * into a pair of them, ex: "(3, 1, 2)"), in one pass
+     *
+     * @param  str
+     * @param  delimiter
+     * @return Tokens
+     */
+    static Tokens tokenize(String str, String delimiter) {
+        Tokens tokens = new Tokens();
+
+        int offsetStart = 0;
+        int offsetEnd   = str.length();
+        while (offsetStart < offsetEnd && Character.isWhitespace(str.charAt(offsetStart))) {
+            offsetStart++;
+        }
+        while (offsetEnd > offsetStart && Character.isWhitespace(str.charAt(offsetEnd - 1))) {
+            offsetEnd--;
+        }
+        if (offsetEnd - offsetStart > 1
+                && "([{".indexOf(str.charAt(offsetStart)) > -1
+                && getOffsetAfterBracketOrString(str, offsetStart, offsetEnd) == offsetEnd) {
+            // Keep surrounding brackets
+            offsetStart++;
+            offsetEnd--;
         }
 
-        return UtilsArray.implode(items, delimiterGlue);
+        int delimiterLength = delimiter.length();
+        int offsetEndTrimmed = offsetEnd;
+        while (offsetEndTrimmed > offsetStart && Character.isWhitespace(str.charAt(offsetEndTrimmed - 1))) {
+            offsetEndTrimmed--;
+        }
+        if (offsetEndTrimmed - delimiterLength > offsetStart && str.startsWith(delimiter, offsetEndTrimmed - delimiterLength)) {
+            // Trailing delimiter (ex: "a, b," or one per line) is no separator of an empty item, but part of the suffix
+            offsetEnd = offsetEndTrimmed - delimiterLength;
+            while (offsetEnd > offsetStart && Character.isWhitespace(str.charAt(offsetEnd - 1))) {
+                offsetEnd--;
+            }
+        }
+        tokens.prefix = str.substring(0, offsetStart);
+        tokens.suffix = str.substring(offsetEnd);
+
+        int offsetItem      = offsetStart;
+        int offset          = offsetStart;
+        while (offset <= offsetEnd) {
+            if (offset < offsetEnd && !str.startsWith(delimiter, offset)) {
+                int offsetAfter = getOffsetAfterBracketOrString(str, offset, offsetEnd);
+                offset = offsetAfter > offset ? Math.min(offsetAfter, offsetEnd) : offset + 1;
+                continue;
+            }
+
+            // Item ends before the delimiter (or at the end of the list), separator includes the surrounding whitespace
+            int offsetItemEnd = offset;
+            while (offsetItemEnd > offsetItem && Character.isWhitespace(str.charAt(offsetItemEnd - 1))) {
+                offsetItemEnd--;
+            }
+            tokens.items.add(str.substring(offsetItem, offsetItemEnd));
+            if (offset == offsetEnd) {
+                break;
+            }
+
+            offsetItem = offset + delimiterLength;
+            while (offsetItem < offsetEnd && Character.isWhitespace(str.charAt(offsetItem))) {
+                offsetItem++;
+            }
+            tokens.separators.add(str.substring(offsetItemEnd, offsetItem));
+            offset = offsetItem;
+        }
+
+        return tokens;
+    }
+
+    /**
+     * @param  str
+     * @param  offset
+     * @param  offsetEnd
+     * @return int          Offset after the quoted string or bracket pair (incl. nested ones) starting at the given
+     *                      offset (exceeding offsetEnd if unclosed), or the given offset if none starts there
+     */
+    private static int getOffsetAfterBracketOrString(String str, int offset, int offsetEnd) {
+        char character = str.charAt(offset);
+        if (isQuoteChar(character)) {
+            // Apostrophe inside a word (ex: "don't") does not start a string
+            if (offset > 0 && Character.isLetterOrDigit(str.charAt(offset - 1))) {
+                return offset;
+            }
+            int offsetQuoteEnd = offset + 1;
+            while (offsetQuoteEnd < offsetEnd && str.charAt(offsetQuoteEnd) != character) {
+                offsetQuoteEnd += '\\' == str.charAt(offsetQuoteEnd) ? 2 : 1;
+            }
+
+            return offsetQuoteEnd + 1;
+        }
+
+        int indexBracket = "([{".indexOf(character);
+        if (-1 == indexBracket) {
+            return offset;
+        }
+        char bracketClose = ")]}".charAt(indexBracket);
+        int offsetBracketEnd = offset + 1;
+        while (offsetBracketEnd < offsetEnd && str.charAt(offsetBracketEnd) != bracketClose) {
+            int offsetAfter = getOffsetAfterBracketOrString(str, offsetBracketEnd, offsetEnd);
+            offsetBracketEnd = offsetAfter > offsetBracketEnd ? offsetAfter : offsetBracketEnd + 1;
+        }
+
+        return offsetBracketEnd + 1;
+    }
+
+    private static boolean isQuoteChar(char character) {
+        return '"' == character || '\'' == character || '`' == character;
     }
 
     /**
      * @param word
-     * @param delimiterSplitPattern
-     * @param delimiterGlue
+     * @param delimiter
      * @param shiftUp
      * @return
      */
-    public static String getShifted(String word, String delimiterSplitPattern, String delimiterGlue, boolean shiftUp) {
-        return sortSeparatedList(word, delimiterSplitPattern, delimiterGlue, shiftUp);
+    public static String getShifted(String word, String delimiter, boolean shiftUp) {
+        return sortSeparatedList(word, delimiter, shiftUp);
     }
-}
\ No newline at end of file
+}
@@ -15,49 +15,128 @@
  */
 package com.kstenschke.shifter.models.shiftableTypes;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Tupel (two items w/ delimiter in between)
  */
 public class Tupel {
 
-    private String delimiter;
+    // Candidate delimiters, in order of priority
+    private static final String[] GLUES = new String[]{
+            ",",
+
+            // Multi-character delimiters containing singe-character delimiters must precede those
+            "!==", "!=",
+            "===", "==",
+            "<=", ">=",
+            "&&", "||",
+
+            ".", ":",
+            "+", "-", "*", "/", "%", "=",
+            "&", "|",
+            "<", ">",
+
+            // Space must be last to not be prematurely detected around other delimiter
+            " ",
+    };
+
+    // Detected tupel: string, and offsets of the 1st part's end, 2nd part's start and end
+    private String detectedStr;
+    private int offsetPart1End;
+    private int offsetPart2Start;
+    private int offsetPart2End;
 
     /**
-     * Check whether shifted string is a ternary expression
+     * Check whether the given string consists of two parts w/ one of the delimiters (and optional whitespace) in between.
+     * All candidate delimiters are detected in one scan (like splitting by each of them, in order of priority, would).
      *
      * @param  str
      * @return boolean
      */
     public boolean isWordsTupel(String str) {
-        String glues[] = new String[]{
-                ",",
-
-                // Multi-character delimiters containing singe-character delimiters must precede those
-                "!==", "!=",
-                "===", "==",
-                "<=", ">=",
-                "&&", "||",
-
-                ".", ":",
-                "+", "-", "*", "/", "%", "=",
-                "&", "|",
-                "<", ">",
-
-                // Space must be last to not be prematurely detected around other delimiter
-                " ",
-        };
-
-        for (String glue : glues) {
-            String parts[] = str.split("\\s*" + Pattern.quote(glue) + "\\s*");
-            if (parts.length == 2 && !parts[0].isEmpty() && !parts[1].isEmpty()) {
-                this.delimiter = glue;
-                return true;
+        int length      = str.length();
+        int amountGlues = GLUES.length;
+
+        // Per glue: offset where the next occurrence may start, amount of occurrences, offsets of the first occurrences
+        int[] offsetsNext     = new int[amountGlues];
+        int[] amountMatches   = new int[amountGlues];
+        int[] offsetsStart1   = new int[amountGlues];
+        int[] offsetsEnd1     = new int[amountGlues];
+        int[] offsetsStart2   = new int[amountGlues];
+        // Was there non-empty text between later occurrences? (splitting would yield a 3rd part)
+        boolean[] isExceeded  = new boolean[amountGlues];
+
+        int offsetWhitespaceEnd = 0;
+        boolean isSpaceInWhitespace = false;
+        for (int offset = 0; offset < length; offset++) {
+            char character = str.charAt(offset);
+            boolean isWhitespace = isWhitespace(character);
+            if (isWhitespace && offset >= offsetWhitespaceEnd) {
+                // Entering a run of whitespace
+                isSpaceInWhitespace = false;
+                offsetWhitespaceEnd = offset;
+                while (offsetWhitespaceEnd < length && isWhitespace(str.charAt(offsetWhitespaceEnd))) {
+                    isSpaceInWhitespace = isSpaceInWhitespace || ' ' == str.charAt(offsetWhitespaceEnd);
+                    offsetWhitespaceEnd++;
+                }
+            }
+            // Delimiter may follow the whitespace that starts here
+            int offsetGlue = isWhitespace ? offsetWhitespaceEnd : offset;
+            char characterGlue = offsetGlue < length ? str.charAt(offsetGlue) : 0;
+
+            for (int index = 0; index < amountGlues; index++) {
+                if (offset < offsetsNext[index]) {
+                    continue;
+                }
+
+                int offsetMatchEnd = -1;
+                String glue = GLUES[index];
+                if (" ".equals(glue)) {
+                    if (isWhitespace && isSpaceInWhitespace) {
+                        offsetMatchEnd = offsetWhitespaceEnd;
+                    }
+                } else if (glue.charAt(0) == characterGlue && str.startsWith(glue, offsetGlue)) {
+                    offsetMatchEnd = offsetGlue + glue.length();
+                    while (offsetMatchEnd < length && isWhitespace(str.charAt(offsetMatchEnd))) {
+                        offsetMatchEnd++;
+                    }
+                }
+                if (-1 == offsetMatchEnd) {
+                    continue;
+                }
+
+                if (0 == amountMatches[index]) {
+                    offsetsStart1[index] = offset;
+                    offsetsEnd1[index]   = offsetMatchEnd;
+                } else if (1 == amountMatches[index]) {
+                    offsetsStart2[index] = offset;
+                } else if (offset > offsetsNext[index]) {
+                    // Non-empty part after the 2nd occurrence
+                    isExceeded[index] = true;
+                }
+                amountMatches[index]++;
+                offsetsNext[index] = offsetMatchEnd;
             }
         }
 
+        for (int index = 0; index < amountGlues; index++) {
+            int amount = amountMatches[index];
+            if (0 == amount || isExceeded[index] || 0 == offsetsStart1[index]) {
+                continue;
+            }
+            int offsetPart2End = amount == 1 ? length : offsetsStart2[index];
+            if (offsetPart2End == offsetsEnd1[index] || (amount > 1 && offsetsNext[index] < length)) {
+                // Empty 2nd part, or non-empty text after the last occurrence
+                continue;
+            }
+
+            this.detectedStr      = str;
+            this.offsetPart1End   = offsetsStart1[index];
+            this.offsetPart2Start = offsetsEnd1[index];
+            this.offsetPart2End   = offsetPart2End;
+
+            return true;
+        }
+
         return false;
     }
 
@@ -68,19 +147,21 @@ public class Tupel {
      * @return String   The shifted string
      */
     public String getShifted(String str) {
-        // Split into tupel
-        String splitPattern = "\\s*" + Pattern.quote(this.delimiter) + "\\s*";
-        String[] parts      = str.split(splitPattern);
+        if (!str.equals(detectedStr) && !isWordsTupel(str)) {
+            return str;
+        }
 
         // Retain variable whitespace around delimiters
-        Pattern partsPattern = Pattern.compile(splitPattern);
-        Matcher matcher      = partsPattern.matcher(str);
-        if (matcher.find()) {
-            String glueWithWhitespace = matcher.group(0);
-            // Swap parts
-            return parts[1].trim() + glueWithWhitespace + parts[0].trim();
-        }
+        return str.substring(offsetPart2Start, offsetPart2End).trim()
+             + str.substring(offsetPart1End, offsetPart2Start)
+             + str.substring(0, offsetPart1End).trim();
+    }
 
-        return parts[1].trim() + delimiter + parts[0].trim();
+    /**
+     * @param  character
+     * @return boolean      Is the given character whitespace (as matched by "\\s" in regular expressions)?
+     */
+    private static boolean isWhitespace(char character) {
+        return ' ' == character || '\t' == character || '\n' == character || '\u000B' == character || '\f' == character || '\r' == character;
     }
-}
\ No newline at end of file
+}
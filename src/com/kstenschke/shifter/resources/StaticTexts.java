@@ -32,6 +32,26 @@ public class StaticTexts {
     public static final String ACTION_LABEL_SHIFT_DOWN_MORE = "Shift-Down More";
     @NonNls
     public static final String TITLE_NUMERIC_BLOCK_OPTIONS  = "Shift Numeric Block Selection";
+    @NonNls
+    public static final String ACTION_LABEL_KEEP_SORTED     = "Keep Lines Sorted";
+    @NonNls
+    public static final String MESSAGE_KEEP_SORTED_MARKED   = "Lines have been sorted and are kept sorted: \"Sort Edited Lines\" moves edited lines into place.";
+    @NonNls
+    public static final String MESSAGE_KEEP_SORTED_UNMARKED = "Lines are no longer kept sorted.";
+    @NonNls
+    public static final String ACTION_LABEL_SORT_EDITED_LINES = "Sort Edited Lines";
+    @NonNls
+    public static final String ACTION_LABEL_DATA_TYPE_RULES      = "Data Type Guessing Rules";
+    @NonNls
+    public static final String MESSAGE_DATA_TYPE_RULES           = "<html>Rules of this project to guess data types of @param variables, preceding the built-in ones.<br>One per line: regular expression (matching the whole lower-cased name) = data type, ex: \\w*uuid = string</html>";
+    @NonNls
+    public static final String MESSAGE_INVALID_DATA_TYPE_RULES   = "Invalid rules are ignored: ";
+    @NonNls
+    public static final String ACTION_LABEL_CONVERT_PHP_ARRAYS   = "Convert PHP Arrays";
+    @NonNls
+    public static final String MESSAGE_CONVERT_PHP_ARRAYS        = "Convert all arrays of the selection (or whole file) to:";
+    @NonNls
+    public static final String MESSAGE_CONVERTED_PHP_ARRAYS      = "Arrays converted: %d";
 
     @NonNls
     public static final String TITLE_REDUCE_DUPLICATE_LINES    = "Reduce duplicate lines?";
@@ -42,6 +62,32 @@ public class StaticTexts {
     @NonNls
     public static final String MESSAGE_REDUCE_DUPLICATED_ITEMS = "Duplicated items detected. Reduce to single occurrences?";
 
+    @NonNls
+    public static final String TITLE_SORT_LINES_BY_FIELD       = "Sort lines by field";
+    @NonNls
+    public static final String ACTION_LABEL_SORT_LINES_BY_FIELD = "Sort Lines by Field";
+    @NonNls
+    public static final String MESSAGE_SORT_LINES_BY_FIELD     = "Field to sort by: column number (separated by \"%s\"), string preceding the value (ex: \":\" or \"=\") or /regular expression/ (1st group is the value)";
+    @NonNls
+    public static final String MESSAGE_INVALID_FIELD_EXPRESSION = "Invalid field to sort by: ";
+
+    @NonNls
+    public static final String NOTIFICATION_GROUP_ID              = "Shifter";
+    @NonNls
+    public static final String TITLE_SIZE_BUDGET_EXCEEDED         = "Shifter: size budget exceeded";
+    @NonNls
+    public static final String MESSAGE_SORTED_WITHOUT_REDUCING_DUPLICATES = "Lines have been sorted. Checking for duplicate lines was skipped, the selection exceeds the size budget.";
+    @NonNls
+    public static final String MESSAGE_SCANNED_AROUND_CARET       = "The file exceeds the size budget: values to shift among are taken from the text around the caret only.";
+    @NonNls
+    public static final String MESSAGE_SORT_DISCARDED_DOCUMENT_MODIFIED = "Sorting lines was discarded, the document has been modified meanwhile.";
+    @NonNls
+    public static final String MESSAGE_SORT_FAILED                = "Sorting lines failed: ";
+    @NonNls
+    public static final String PROGRESS_TITLE_SORTING_LINES       = "Sorting lines";
+    @NonNls
+    public static final String PROGRESS_TITLE_SORTING_CSS         = "Sorting CSS attributes";
+
     @NonNls
     public static final String POPUP_TITLE_SHIFT = "Shifting Mode";
     @NonNls
@@ -62,6 +108,8 @@ public class StaticTexts {
     @NonNls
     public static final String SHIFT_OPTION_LINES_SORT = "Sort lines alphabetical";
     @NonNls
+    public static final String SHIFT_OPTION_LINES_SORT_BY_FIELD = "Sort lines by field...";
+    @NonNls
     public static final String SHIFT_OPTION_LIST_ITEMS_SORT = "Sort items alphabetical";
     @NonNls
     public static final String SHIFT_OPTION_LIST_ITEMS_SWAP = "Swap list items";
@@ -81,4 +129,8 @@ public class StaticTexts {
     public static final String SHIFT_OPTION_SWAP_PARENTHESIS = "Toggle (...) and [...]";
     @NonNls
     public static final String SHIFT_OPTION_CONVERT_PHP_ARRAY_TO_LONG_SYNTAX = "Convert to PHP array long syntax";
+    @NonNls
+    public static final String SHIFT_OPTION_CONVERT_PHP_ARRAYS_TO_SHORT_SYNTAX = "Convert all PHP arrays to short syntax";
+    @NonNls
+    public static final String SHIFT_OPTION_CONVERT_PHP_ARRAYS_TO_LONG_SYNTAX = "Convert all PHP arrays to long syntax";
 }
\ No newline at end of file
@@ -31,6 +31,9 @@ public class PluginConfiguration {
 
     private JRadioButton radioButtonShiftInSeconds;
     private JRadioButton radioButtonShiftInMilliseconds;
+    private JRadioButton radioButtonSortCaseSensitive;
+    private JRadioButton radioButtonSortCaseInsensitive;
+    private JRadioButton radioButtonSortLocale;
 
     private JScrollPane scrollPaneDictionaryTerms;
 
@@ -38,6 +41,9 @@ public class PluginConfiguration {
     private JPanel jPanelTopBar;
 
     private JSpinner spinnerShiftMore;
+    private JSpinner spinnerSizeBudget;
+    private JSpinner spinnerParallelSortMinLines;
+    private JSpinner spinnerExternalSortMinSize;
 
     private JTextPane thisDictionaryConfiguresShiftableTextPane;
 
@@ -50,6 +56,7 @@ public class PluginConfiguration {
     private JCheckBox checkboxConvertDoubleQuotes;
     private JCheckBox checkboxPhpArrayLongToShort;
     private JCheckBox checkboxPhpArrayShortToLong;
+    private JCheckBox checkboxProjectScopeVocabulary;
 
     /**
      * Constructor
@@ -64,6 +71,9 @@ public class PluginConfiguration {
      */
     public void initFormValues() {
         this.spinnerShiftMore.setModel( new SpinnerNumberModel(ShifterPreferences.getShiftMoreSize(), 2, 999, 1));
+        this.spinnerSizeBudget.setModel( new SpinnerNumberModel(ShifterPreferences.getSizeBudget(), 10000, 999999999, 100000));
+        this.spinnerParallelSortMinLines.setModel( new SpinnerNumberModel(ShifterPreferences.getParallelSortMinLines(), 1000, 999999999, 10000));
+        this.spinnerExternalSortMinSize.setModel( new SpinnerNumberModel(ShifterPreferences.getExternalSortMinSize(), 1000000, 999999999, 1000000));
 
         if (ShifterPreferences.getShiftingModeOfTimestamps().equals(ShifterPreferences.SHIFTING_MODE_TIMESTAMP_SECONDS)) {
             this.radioButtonShiftInSeconds.setSelected(true);
@@ -71,6 +81,15 @@ public class PluginConfiguration {
             this.radioButtonShiftInMilliseconds.setSelected(true);
         }
 
+        int sortingMode = ShifterPreferences.getSortingMode();
+        if (sortingMode == ShifterPreferences.SORTING_MODE_CASE_SENSITIVE) {
+            this.radioButtonSortCaseSensitive.setSelected(true);
+        } else if (sortingMode == ShifterPreferences.SORTING_MODE_LOCALE) {
+            this.radioButtonSortLocale.setSelected(true);
+        } else {
+            this.radioButtonSortCaseInsensitive.setSelected(true);
+        }
+
         this.inputMillisecondsEndings.setText(ShifterPreferences.getMillisecondsFileEndings());
         this.inputSecondsEndings.setText(ShifterPreferences.getSecondsFileEndings());
 
@@ -79,6 +98,7 @@ public class PluginConfiguration {
         this.checkboxConvertDoubleQuotes.setSelected(ShifterPreferences.getIsActiveConvertDoubleQuotes());
         this.checkboxPhpArrayShortToLong.setSelected(ShifterPreferences.getIsActiveConvertPhpArrayShortToLong());
         this.checkboxPhpArrayLongToShort.setSelected(ShifterPreferences.getIsActiveConvertPhpArrayLongToShort());
+        this.checkboxProjectScopeVocabulary.setSelected(ShifterPreferences.getIsActiveProjectScopeVocabulary());
 
         String termsDictionary   = ShifterPreferences.getTermsDictionary();
         if (termsDictionary == null || termsDictionary.isEmpty())  {
@@ -111,10 +131,15 @@ public class PluginConfiguration {
         checkboxConvertSingleQuotes.setSelected(false);
         checkboxPhpArrayLongToShort.setSelected(true);
         checkboxPhpArrayShortToLong.setSelected(false);
+        checkboxProjectScopeVocabulary.setSelected(false);
 
         radioButtonShiftInSeconds.setSelected(true);
+        radioButtonSortCaseInsensitive.setSelected(true);
 
         spinnerShiftMore.setValue(10);
+        spinnerSizeBudget.setValue(ShifterPreferences.DEFAULT_SIZE_BUDGET);
+        spinnerParallelSortMinLines.setValue(ShifterPreferences.DEFAULT_PARALLEL_SORT_MIN_LINES);
+        spinnerExternalSortMinSize.setValue(ShifterPreferences.DEFAULT_EXTERNAL_SORT_MIN_SIZE);
 
         inputMillisecondsEndings.setText(ShifterPreferences.DEFAULT_FILE_ENDINGS_MILLISECONDS);
         inputSecondsEndings.setText(ShifterPreferences.DEFAULT_FILE_ENDINGS_SECONDS);
@@ -139,6 +164,16 @@ public class PluginConfiguration {
                 : ShifterPreferences.SHIFTING_MODE_TIMESTAMP_MILLISECONDS;
     }
 
+    private Integer getSelectedSortingMode() {
+        if (radioButtonSortCaseSensitive.isSelected()) {
+            return ShifterPreferences.SORTING_MODE_CASE_SENSITIVE;
+        }
+
+        return radioButtonSortLocale.isSelected()
+                ? ShifterPreferences.SORTING_MODE_LOCALE
+                : ShifterPreferences.SORTING_MODE_CASE_INSENSITIVE;
+    }
+
     /**
      * @return  boolean
      */
@@ -154,13 +189,18 @@ public class PluginConfiguration {
     public boolean isModified() {
         return   
              Integer.parseInt(this.spinnerShiftMore.getValue().toString()) != ShifterPreferences.getShiftMoreSize()
+          || Integer.parseInt(this.spinnerSizeBudget.getValue().toString()) != ShifterPreferences.getSizeBudget()
+          || Integer.parseInt(this.spinnerParallelSortMinLines.getValue().toString()) != ShifterPreferences.getParallelSortMinLines()
+          || Integer.parseInt(this.spinnerExternalSortMinSize.getValue().toString()) != ShifterPreferences.getExternalSortMinSize()
           || !this.textAreaDictionaryTerms.getText().equals(ShifterPreferences.getTermsDictionary())
           || !ShifterPreferences.getIsActivePreserveCase().equals(this.checkboxPreserveCase.isSelected())
           || !ShifterPreferences.getIsActiveConvertSingleQuotes().equals(this.checkboxConvertSingleQuotes.isSelected())
           || !ShifterPreferences.getIsActiveConvertDoubleQuotes().equals(this.checkboxConvertDoubleQuotes.isSelected())
           || !ShifterPreferences.getIsActiveConvertPhpArrayLongToShort().equals(this.checkboxPhpArrayLongToShort.isSelected())
           || !ShifterPreferences.getIsActiveConvertPhpArrayShortToLong().equals(this.checkboxPhpArrayShortToLong.isSelected())
+          || !ShifterPreferences.getIsActiveProjectScopeVocabulary().equals(this.checkboxProjectScopeVocabulary.isSelected())
           || !ShifterPreferences.getShiftingModeOfTimestamps().equals(this.getSelectedShiftingModeOfTimestamps())
+          || ShifterPreferences.getSortingMode() != this.getSelectedSortingMode()
           || !ShifterPreferences.getMillisecondsFileEndings().equals(this.inputMillisecondsEndings.getText())
           || !ShifterPreferences.getSecondsFileEndings().equals(this.inputSecondsEndings.getText())
         ;
@@ -176,12 +216,17 @@ public class PluginConfiguration {
     public void apply() {
         // Store configuration
         ShifterPreferences.saveShiftMoreSize(this.getShiftMoreSize());
+        ShifterPreferences.saveSizeBudget(this.spinnerSizeBudget.getValue().toString());
+        ShifterPreferences.saveParallelSortMinLines(this.spinnerParallelSortMinLines.getValue().toString());
+        ShifterPreferences.saveExternalSortMinSize(this.spinnerExternalSortMinSize.getValue().toString());
         ShifterPreferences.saveIsActivePreserveCase(this.getIsActivePreserveCase());
         ShifterPreferences.saveShiftingModeTimestamps(this.getSelectedShiftingModeOfTimestamps());
+        ShifterPreferences.saveSortingMode(this.getSelectedSortingMode());
         ShifterPreferences.saveMillisecondsFileEndings(this.inputMillisecondsEndings.getToolTipText());
         ShifterPreferences.saveSecondsFileEndings(this.inputSecondsEndings.getToolTipText());
         ShifterPreferences.saveConvertQuoteActiveModes(this.checkboxConvertSingleQuotes.isSelected(), this.checkboxConvertDoubleQuotes.isSelected());
         ShifterPreferences.saveConvertPhpArrayActiveModes(this.checkboxPhpArrayLongToShort.isSelected(), this.checkboxPhpArrayShortToLong.isSelected());
+        ShifterPreferences.saveIsActiveProjectScopeVocabulary(this.checkboxProjectScopeVocabulary.isSelected());
 
         // Store dictionary
         String dictionary = this.getDictionary();
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import com.intellij.openapi.project.Project;
+import com.kstenschke.shifter.ShifterPreferences;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Guess data types of (PHP / JavaScript) variables by their names. The naming rules (regular expressions, matching the
+ * whole lower-cased name) are compiled once into one pattern of prioritized alternatives: the first matching rule
+ * determines the data type. Custom rules of the project precede the built-in ones.
+ */
+public class DataTypeGuesser {
+
+    public static final String DATA_TYPE_UNKNOWN = "unknown";
+
+    // Built-in naming rules of PHP variables: regular expression, data type - in order of precedence
+    private static final String[][] RULES_PHP = {
+            {"\\w*name|\\w*title|\\w*url", "string"},
+            {"(\\w*delim(iter)*|\\w*dir(ectory)*|\\w*domain|\\w*key|\\w*link|\\w*name|\\w*path\\w*|\\w*prefix|\\w*suffix|charlist|comment|\\w*file(name)*|format|glue|haystack|html|intput|locale|message|name|needle|output|replace(ment)*|salt|separator|str(ing)*|url)\\d*", "string"},
+            {"(arr(ay)|\\w*pieces|\\w*list|\\w*items|\\w*ids)\\d*", "array"},
+            {"(\\w*day|\\w*end|\\w*expire|\\w*handle|\\w*height|\\w*hour(s)*|\\w*id|\\w*index|\\w*len(gth)*|\\w*mask|\\w*pointer|\\w*quality|\\w*s(e)*ize|\\w*start|\\w*step(s)*|tick|\\w*year\\w*|ascii|base|blue|ch|chunklen|fp|green|len|limit|\\w*max|\\w*min|\\w*mode|month|\\w*multiplier|now|num|offset|\\w*op(eration)*|\\w*pos(ition)*|red|\\w*time(stamp)*|week|\\w*wid(th)*|x|y)\\d*", "int"},
+            {"(\\w*gamma|percent)\\d*", "float"},
+            {"(\\wmodel|\\w*obj(ect)*)\\d*", "Object"},
+            {"(\\w*s)\\d*|\\w*arr(ay)*|\\w*items|\\w*data|data\\w*", "array"},
+            {"(do\\w*|has\\w+|is\\w+|return\\w*|should\\w*)", "bool"}
+    };
+
+    // Built-in naming rules of JavaScript parameters, preceding the PHP rules
+    private static final String[][] RULES_JS = {
+            {"\\$.*|\\w*element", "*"},
+            {"\\w*date\\w*", "Date"},
+            {"\\w*obj\\w*", "Object"},
+            // e.g. x, y, i, etc.
+            {".", "number"}
+    };
+
+    private static final DataTypeGuesser GUESSER_PHP = new DataTypeGuesser(parseRules(RULES_PHP));
+    private static final DataTypeGuesser GUESSER_JS  = new DataTypeGuesser(parseRules(RULES_JS, RULES_PHP));
+
+    // Guessers incl. the custom rules of the project they were last compiled for
+    private static String customRulesCached = "";
+    private static DataTypeGuesser guesserPhpCached = GUESSER_PHP;
+    private static DataTypeGuesser guesserJsCached  = GUESSER_JS;
+
+    private final Pattern pattern;
+
+    // Data type of each rule, and the number of the group wrapping the rule within the combined pattern
+    private final String[] dataTypes;
+    private final int[] groupNumbers;
+
+    /**
+     * @param rules     Pairs of regular expression and data type, in order of precedence
+     */
+    private DataTypeGuesser(List<String[]> rules) {
+        dataTypes    = new String[rules.size()];
+        groupNumbers = new int[rules.size()];
+
+        StringBuilder regex = new StringBuilder();
+        int groupNumber = 1;
+        for (int index = 0; index < rules.size(); index++) {
+            String[] rule = rules.get(index);
+            dataTypes[index]    = rule[1];
+            groupNumbers[index] = groupNumber;
+            groupNumber += 1 + Pattern.compile(rule[0]).matcher("").groupCount();
+
+            regex.append(index > 0 ? "|" : "").append('(').append(rule[0]).append(')');
+        }
+
+        pattern = Pattern.compile(regex.toString());
+    }
+
+    /**
+     * @param  name     Name of PHP variable (w/o "$")
+     * @param  project  Project of custom rules, or null for built-in rules only
+     * @return String   Name of primitive (PHP) data type, or "unknown"
+     */
+    public static String guessPhpDataType(String name, @Nullable Project project) {
+        return getGuessers(project)[0].guess(name);
+    }
+
+    /**
+     * @param  name     Name of JavaScript parameter
+     * @param  project  Project of custom rules, or null for built-in rules only
+     * @return String   Data type (PHP primitive types are to be corrected into JavaScript ones), or "unknown"
+     */
+    public static String guessJsDataType(String name, @Nullable Project project) {
+        return getGuessers(project)[1].guess(name);
+    }
+
+    /**
+     * @param  name
+     * @return String   Data type of the first rule matching the given (lower-cased) name, or "unknown"
+     */
+    private String guess(String name) {
+        Matcher matcher = pattern.matcher(name.toLowerCase());
+        if (!matcher.matches()) {
+            return DATA_TYPE_UNKNOWN;
+        }
+        for (int index = 0; index < groupNumbers.length; index++) {
+            if (-1 != matcher.start(groupNumbers[index])) {
+                return dataTypes[index];
+            }
+        }
+
+        return DATA_TYPE_UNKNOWN;
+    }
+
+    /**
+     * @param  project
+     * @return DataTypeGuesser[]    Guessers of PHP and JavaScript data types, incl. the custom rules of the given project
+     */
+    private static synchronized DataTypeGuesser[] getGuessers(@Nullable Project project) {
+        String customRules = null == project ? "" : ShifterPreferences.getDataTypeRules(project);
+        if (customRules.trim().isEmpty()) {
+            return new DataTypeGuesser[]{GUESSER_PHP, GUESSER_JS};
+        }
+        if (!customRules.equals(customRulesCached)) {
+            List<String[]> rulesCustom = parseCustomRules(customRules, null);
+
+            List<String[]> rulesPhp = new ArrayList<String[]>(rulesCustom);
+            rulesPhp.addAll(parseRules(RULES_PHP));
+            List<String[]> rulesJs = new ArrayList<String[]>(rulesCustom);
+            rulesJs.addAll(parseRules(RULES_JS, RULES_PHP));
+
+            customRulesCached = customRules;
+            try {
+                guesserPhpCached = new DataTypeGuesser(rulesPhp);
+                guesserJsCached  = new DataTypeGuesser(rulesJs);
+            } catch (PatternSyntaxException e) {
+                // Rules cannot be combined into one pattern: use the built-in rules only
+                guesserPhpCached = GUESSER_PHP;
+                guesserJsCached  = GUESSER_JS;
+            }
+        }
+
+        return new DataTypeGuesser[]{guesserPhpCached, guesserJsCached};
+    }
+
+    private static List<String[]> parseRules(String[][]... ruleSets) {
+        List<String[]> rules = new ArrayList<String[]>();
+        for (String[][] ruleSet : ruleSets) {
+            for (String[] rule : ruleSet) {
+                rules.add(rule);
+            }
+        }
+
+        return rules;
+    }
+
+    /**
+     * @param  customRules      One rule per line: regular expression (matching the lower-cased name) = data type.
+     *                          Expressions w/ backreferences or named groups are invalid, as they cannot be combined
+     * @param  invalidRules     Lines of invalid rules are added to this list, if given
+     * @return List<String[]>   Valid rules, pairs of regular expression and data type
+     */
+    public static List<String[]> parseCustomRules(String customRules, @Nullable List<String> invalidRules) {
+        List<String[]> rules = new ArrayList<String[]>();
+        for (String line : customRules.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            int offsetEquals = line.lastIndexOf('=');
+            String regex     = offsetEquals > 0 ? line.substring(0, offsetEquals).trim() : "";
+            String dataType  = offsetEquals > 0 ? line.substring(offsetEquals + 1).trim() : "";
+            if (!regex.isEmpty() && !dataType.isEmpty() && isCombinable(regex)) {
+                try {
+                    Pattern.compile(regex);
+                    rules.add(new String[]{regex, dataType});
+                    continue;
+                } catch (PatternSyntaxException e) {
+                    // Invalid regular expression
+                }
+            }
+            if (null != invalidRules) {
+                invalidRules.add(line);
+            }
+        }
+
+        return rules;
+    }
+
+    /**
+     * @param  regex
+     * @return boolean  Can the given expression be combined w/ other rules into one pattern? Backreferences ("\1",
+     *                  "\k<name>") would refer to groups of other rules there, names of groups could clash
+     */
+    private static boolean isCombinable(String regex) {
+        for (int offset = 0; offset < regex.length() - 1; offset++) {
+            char character = regex.charAt(offset);
+            char next      = regex.charAt(offset + 1);
+            if ('\\' == character) {
+                if ((next >= '1' && next <= '9') || 'k' == next) {
+                    return false;
+                }
+                // Skip escaped character
+                offset++;
+            } else if ('(' == character && regex.startsWith("?<", offset + 1)
+                    && offset + 3 < regex.length() && Character.isLetter(regex.charAt(offset + 3))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
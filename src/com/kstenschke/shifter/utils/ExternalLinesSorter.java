@@ -0,0 +1,265 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import com.kstenschke.shifter.models.comparators.AlphanumComparator;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Natural sort of amounts of lines too large to be held in memory comfortably (more than once):
+ * Added lines are collected into runs of limited size, each run is sorted and spilled into a temporary file.
+ * The sorted runs are then k-way merged, streaming the sorted lines to a consumer.
+ * The resulting order is identical to UtilsTextual.sortLinesNatural() (w/o delimiter maintenance).
+ */
+public class ExternalLinesSorter {
+
+    // Maximum amount of characters per run held in memory
+    public static final int DEFAULT_RUN_LENGTH = 4 * 1024 * 1024;
+
+    // Encoding of merged files: two bytes per char, the file length corresponds to the amount of chars
+    private static final String CHARSET_MERGED = "UTF-16BE";
+
+    public interface LineConsumer {
+        void consume(String line) throws IOException;
+    }
+
+    private final boolean reverse;
+    private final int maxRunLength;
+
+    private final List<String> run = new ArrayList<String>();
+    private int runLength = 0;
+
+    private final List<File> runFiles = new ArrayList<File>();
+
+    private final AlphanumComparator comparator;
+
+    /**
+     * Constructor
+     *
+     * @param reverse       Sort descending?
+     * @param maxRunLength  Maximum amount of characters per run held in memory
+     * @param sortingMode   One of ShifterPreferences.SORTING_MODE_CASE_SENSITIVE / _CASE_INSENSITIVE / _LOCALE
+     */
+    public ExternalLinesSorter(boolean reverse, int maxRunLength, int sortingMode) {
+        this.reverse      = reverse;
+        this.maxRunLength = maxRunLength;
+        this.comparator   = new AlphanumComparator(sortingMode);
+    }
+
+    /**
+     * @param  line
+     * @throws IOException
+     */
+    public void add(String line) throws IOException {
+        run.add(line);
+        runLength += line.length();
+
+        if (runLength >= maxRunLength) {
+            spillRun();
+        }
+    }
+
+    /**
+     * Merge all added lines in sorted order into the given consumer. Temporary files are deleted afterwards.
+     *
+     * @param  consumer
+     * @throws IOException
+     */
+    public void merge(LineConsumer consumer) throws IOException {
+        if (runFiles.isEmpty()) {
+            // All lines fit into one run: no need to spill
+            sortRun();
+            for (String line : run) {
+                consumer.consume(line);
+            }
+            run.clear();
+            return;
+        }
+        if (!run.isEmpty()) {
+            spillRun();
+        }
+
+        PriorityQueue<RunReader> heads = new PriorityQueue<RunReader>(runFiles.size(), new Comparator<RunReader>() {
+            public int compare(RunReader reader1, RunReader reader2) {
+                int result = comparator.compareKeys(reader1.key, reader2.key);
+                if (result == 0) {
+                    // Equal lines: maintain original order (reversed when sorting descending)
+                    result = reader1.index - reader2.index;
+                }
+
+                return reverse ? -result : result;
+            }
+        });
+
+        try {
+            for (int index = 0; index < runFiles.size(); index++) {
+                RunReader reader = new RunReader(runFiles.get(index), index, comparator);
+                if (reader.next()) {
+                    heads.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+
+            while (!heads.isEmpty()) {
+                RunReader reader = heads.poll();
+                consumer.consume(reader.line);
+
+                if (reader.next()) {
+                    heads.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+        } finally {
+            for (RunReader reader : heads) {
+                reader.close();
+            }
+            deleteRunFiles();
+        }
+    }
+
+    /**
+     * Merge all added lines in sorted order into a temporary file, UTF-16 (big-endian) encoded: the sorted text can then
+     * be read back in chunks, w/o holding it in memory as a whole. The file is to be deleted by the caller.
+     *
+     * @return File
+     * @throws IOException
+     */
+    public File mergeToFile() throws IOException {
+        File mergedFile = File.createTempFile("shifter-sort", ".merged");
+        mergedFile.deleteOnExit();
+
+        final Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(mergedFile), CHARSET_MERGED));
+        try {
+            merge(new LineConsumer() {
+                public void consume(String line) throws IOException {
+                    out.write(line);
+                }
+            });
+        } catch (IOException e) {
+            out.close();
+            //noinspection ResultOfMethodCallIgnored
+            mergedFile.delete();
+            throw e;
+        }
+        out.close();
+
+        return mergedFile;
+    }
+
+    /**
+     * @param  mergedFile   File written by mergeToFile()
+     * @return Reader       Reader of the sorted text
+     * @throws IOException
+     */
+    public static Reader openMergedFile(File mergedFile) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(mergedFile), CHARSET_MERGED));
+    }
+
+    /**
+     * Delete temporary files (ex: when the sort is aborted before merging)
+     */
+    public void deleteRunFiles() {
+        for (File runFile : runFiles) {
+            //noinspection ResultOfMethodCallIgnored
+            runFile.delete();
+        }
+        runFiles.clear();
+    }
+
+    private void sortRun() {
+        comparator.sort(run);
+        if (reverse) {
+            Collections.reverse(run);
+        }
+    }
+
+    private void spillRun() throws IOException {
+        sortRun();
+
+        File runFile = File.createTempFile("shifter-sort", ".run");
+        runFile.deleteOnExit();
+        runFiles.add(runFile);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile)));
+        try {
+            for (String line : run) {
+                out.writeInt(line.length());
+                out.writeChars(line);
+            }
+        } finally {
+            out.close();
+        }
+
+        run.clear();
+        runLength = 0;
+    }
+
+    /**
+     * Sequential reader of a spilled run, holding the current line and its sort key
+     */
+    private static class RunReader {
+
+        private final DataInputStream in;
+        private final int index;
+        private final AlphanumComparator comparator;
+
+        private String line;
+        private String key;
+
+        RunReader(File runFile, int index, AlphanumComparator comparator) throws IOException {
+            this.in         = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile)));
+            this.index      = index;
+            this.comparator = comparator;
+        }
+
+        /**
+         * @return boolean  Has a next line been read?
+         */
+        boolean next() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = in.readChar();
+            }
+            line = new String(chars);
+            key  = comparator.getSortKey(line);
+
+            return true;
+        }
+
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Silence
+            }
+        }
+    }
+}
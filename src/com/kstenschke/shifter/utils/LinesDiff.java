@@ -0,0 +1,265 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import com.intellij.openapi.editor.Document;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line-based diff (Myers' algorithm), to apply shifted text to the document by replacing only the changed lines,
+ * instead of the whole shifted range: reparsing, undo records, folding and markers then only concern the actual change.
+ */
+public class LinesDiff {
+
+    // Edit distance (in lines) beyond which the differing range is replaced as a whole
+    private static final int MAX_EDIT_DISTANCE = 1000;
+
+    // Amount of changed ranges beyond which they are merged into one replacement
+    private static final int MAX_AMOUNT_HUNKS = 100;
+
+    /**
+     * Range of lines of the old text (start inclusive, end exclusive) to be replaced by a range of lines of the new text
+     */
+    public static class Hunk {
+        public final int oldStart;
+        public final int oldEnd;
+        public final int newStart;
+        public final int newEnd;
+
+        Hunk(int oldStart, int oldEnd, int newStart, int newEnd) {
+            this.oldStart = oldStart;
+            this.oldEnd   = oldEnd;
+            this.newStart = newStart;
+            this.newEnd   = newEnd;
+        }
+    }
+
+    /**
+     * Replace given range of the document by given text, by replacing only the differing lines (last to first)
+     *
+     * @param document
+     * @param offsetStart
+     * @param offsetEnd
+     * @param replacement
+     */
+    public static void replaceString(Document document, int offsetStart, int offsetEnd, CharSequence replacement) {
+        String textOld = document.getCharsSequence().subSequence(offsetStart, offsetEnd).toString();
+        String textNew = replacement.toString();
+
+        List<String> linesOld = splitLines(textOld);
+        List<String> linesNew = splitLines(textNew);
+
+        int[] offsetsOld = getLineOffsets(linesOld);
+        int[] offsetsNew = getLineOffsets(linesNew);
+
+        List<Hunk> hunks = getHunks(linesOld, linesNew);
+        for (int i = hunks.size() - 1; i >= 0; i--) {
+            Hunk hunk = hunks.get(i);
+            document.replaceString(
+                    offsetStart + offsetsOld[hunk.oldStart],
+                    offsetStart + offsetsOld[hunk.oldEnd],
+                    textNew.substring(offsetsNew[hunk.newStart], offsetsNew[hunk.newEnd]));
+        }
+    }
+
+    /**
+     * @param  text
+     * @return List<String>     Lines of given text, each including its trailing newline
+     */
+    public static List<String> splitLines(String text) {
+        List<String> lines = new ArrayList<String>();
+
+        int length    = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = lineEnd == -1 ? length : lineEnd + 1;
+            lines.add(text.substring(lineStart, lineEnd));
+            lineStart = lineEnd;
+        }
+
+        return lines;
+    }
+
+    /**
+     * @param  lines
+     * @return int[]    Start offset of each line, and the total length as last item
+     */
+    private static int[] getLineOffsets(List<String> lines) {
+        int[] offsets = new int[lines.size() + 1];
+        for (int i = 0; i < lines.size(); i++) {
+            offsets[i + 1] = offsets[i] + lines.get(i).length();
+        }
+
+        return offsets;
+    }
+
+    /**
+     * @param  linesOld
+     * @param  linesNew
+     * @return List<Hunk>   Ranges of differing lines, ascending
+     */
+    public static List<Hunk> getHunks(List<String> linesOld, List<String> linesNew) {
+        int amountOld = linesOld.size();
+        int amountNew = linesNew.size();
+
+        // Skip common leading and trailing lines
+        int prefix = 0;
+        while (prefix < amountOld && prefix < amountNew && linesOld.get(prefix).equals(linesNew.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < amountOld - prefix && suffix < amountNew - prefix
+                && linesOld.get(amountOld - 1 - suffix).equals(linesNew.get(amountNew - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Hunk> hunks = new ArrayList<Hunk>();
+        if (prefix == amountOld && prefix == amountNew) {
+            return hunks;
+        }
+
+        // Compare lines by IDs, equal lines having equal IDs
+        Map<String, Integer> ids = new HashMap<String, Integer>();
+        int[] a = toIds(linesOld.subList(prefix, amountOld - suffix), ids);
+        int[] b = toIds(linesNew.subList(prefix, amountNew - suffix), ids);
+
+        List<int[]> matches = getMatches(a, b);
+        if (null == matches) {
+            // Too different: replace differing range as a whole
+            hunks.add(new Hunk(prefix, amountOld - suffix, prefix, amountNew - suffix));
+            return hunks;
+        }
+
+        int previousA = 0;
+        int previousB = 0;
+        matches.add(new int[]{a.length, b.length});
+        for (int[] match : matches) {
+            if (match[0] > previousA || match[1] > previousB) {
+                hunks.add(new Hunk(prefix + previousA, prefix + match[0], prefix + previousB, prefix + match[1]));
+            }
+            previousA = match[0] + 1;
+            previousB = match[1] + 1;
+        }
+
+        if (hunks.size() > MAX_AMOUNT_HUNKS) {
+            Hunk first = hunks.get(0);
+            Hunk last  = hunks.get(hunks.size() - 1);
+            hunks.clear();
+            hunks.add(new Hunk(first.oldStart, last.oldEnd, first.newStart, last.newEnd));
+        }
+
+        return hunks;
+    }
+
+    private static int[] toIds(List<String> lines, Map<String, Integer> ids) {
+        int[] lineIds = new int[lines.size()];
+        int index = 0;
+        for (String line : lines) {
+            Integer id = ids.get(line);
+            if (null == id) {
+                id = ids.size();
+                ids.put(line, id);
+            }
+            lineIds[index++] = id;
+        }
+
+        return lineIds;
+    }
+
+    /**
+     * Myers' greedy shortest edit script, keeping the furthest reaching x of each diagonal k per edit distance d
+     *
+     * @param  a
+     * @param  b
+     * @return List<int[]>  Indices of matched items {index in a, index in b}, ascending. Null if the edit distance is too large
+     */
+    @Nullable
+    private static List<int[]> getMatches(int[] a, int[] b) {
+        int n = a.length;
+        int m = b.length;
+        int maxD = Math.min(n + m, MAX_EDIT_DISTANCE);
+
+        int offset = maxD + 1;
+        int[] v    = new int[2 * maxD + 3];
+        // Snapshots of v (diagonals -d..d) before each step d, for backtracking
+        List<int[]> trace = new ArrayList<int[]>();
+
+        for (int d = 0; d <= maxD; d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, 2 * d + 1);
+            trace.add(snapshot);
+
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[x] == b[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+
+                if (x >= n && y >= m) {
+                    return backtrack(trace, a, b, d);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static List<int[]> backtrack(List<int[]> trace, int[] a, int[] b, int editDistance) {
+        List<int[]> matches = new ArrayList<int[]>();
+
+        int x = a.length;
+        int y = b.length;
+        for (int d = editDistance; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k   = x - y;
+
+            int previousK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+            int previousX = v[previousK + d];
+            int previousY = previousX - previousK;
+
+            // Snake: diagonal of equal items, reached after the edit from the previous diagonal
+            int snakeStartX = previousK == k + 1 ? previousX : previousX + 1;
+            while (x > snakeStartX) {
+                x--;
+                y--;
+                matches.add(new int[]{x, y});
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0 && y > 0) {
+            x--;
+            y--;
+            matches.add(new int[]{x, y});
+        }
+
+        Collections.reverse(matches);
+
+        return matches;
+    }
+}
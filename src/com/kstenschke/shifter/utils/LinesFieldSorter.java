@@ -0,0 +1,276 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import com.kstenschke.shifter.models.comparators.AlphanumComparator;
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Sort lines by a field of each line, instead of by the whole line. The field is given by an expression:
+ * "3" - the 3rd column (columns separated by the detected table separator: tab, ";", "," or "|", or by whitespace),
+ * ":" or "=" (any non-numeric string) - the value following the first occurrence of that string,
+ * "/regex/" - the first capture group of the regular expression (or the whole match, if it has no group).
+ * Field offsets are extracted once per line, numeric fields sort numerically (before non-numeric ones), others naturally.
+ */
+public class LinesFieldSorter {
+
+    // Candidates of column separators of tables (ex: TSV, CSV), in order of precedence
+    private static final String[] FIELD_SEPARATORS = {"\t", ";", ",", "|"};
+
+    private static final Pattern PATTERN_NUMBER = Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?");
+
+    // Number of column (starting w/ 1), or 0 if the field follows the separator
+    private final int column;
+
+    // Column separator or string preceding the field. Null: columns are separated by whitespace
+    @Nullable
+    private final String separator;
+
+    @Nullable
+    private final Pattern pattern;
+
+    private LinesFieldSorter(int column, @Nullable String separator, @Nullable Pattern pattern) {
+        this.column    = column;
+        this.separator = separator;
+        this.pattern   = pattern;
+    }
+
+    /**
+     * @param  expression           Field expression, ex: "2", ":", "/id=(\d+)/"
+     * @param  columnSeparator      Separator of columns, if the field is given by number. Null: whitespace
+     * @return LinesFieldSorter     Sorter by the given field, or null if the expression is invalid
+     */
+    @Nullable
+    public static LinesFieldSorter fromExpression(@Nullable String expression, @Nullable String columnSeparator) {
+        if (null == expression || expression.isEmpty()) {
+            return null;
+        }
+
+        int length = expression.length();
+        if (length > 2 && expression.startsWith("/") && expression.endsWith("/")) {
+            try {
+                return new LinesFieldSorter(0, null, Pattern.compile(expression.substring(1, length - 1)));
+            } catch (PatternSyntaxException e) {
+                return null;
+            }
+        }
+
+        if (StringUtils.isNumeric(expression.trim())) {
+            try {
+                int column = Integer.parseInt(expression.trim());
+
+                return column > 0 ? new LinesFieldSorter(column, columnSeparator, null) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        return new LinesFieldSorter(0, expression, null);
+    }
+
+    /**
+     * Detect the separator of table-like lines: all non-empty lines contain the same amount of separators (at least
+     * two, or one tab), none ends w/ it (ex: ";" ending code statements). Other separators can be given as expression.
+     *
+     * @param  lines
+     * @return String   First of the candidate separators that splits all non-empty lines into the same amount of fields, or null
+     */
+    @Nullable
+    public static String detectFieldSeparator(List<String> lines) {
+        for (String separator : FIELD_SEPARATORS) {
+            int amountSeparatorsPerLine = -1;
+            for (String line : lines) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+                int amountSeparators = line.endsWith(separator) ? 0 : StringUtils.countMatches(line, separator);
+                if (-1 == amountSeparatorsPerLine) {
+                    amountSeparatorsPerLine = amountSeparators;
+                } else if (amountSeparators != amountSeparatorsPerLine) {
+                    amountSeparatorsPerLine = 0;
+                    break;
+                }
+            }
+            if (amountSeparatorsPerLine >= ("\t".equals(separator) ? 1 : 2)) {
+                return separator;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param  lines
+     * @return int[]    Start and end offset of the field within each line (2 items per line), -1 if the line has no such field
+     */
+    public int[] extractFieldOffsets(List<String> lines) {
+        int[] offsets = new int[lines.size() * 2];
+
+        int index = 0;
+        for (String line : lines) {
+            int lineEnd = line.length();
+            while (lineEnd > 0 && (line.charAt(lineEnd - 1) == '\n' || line.charAt(lineEnd - 1) == '\r')) {
+                lineEnd--;
+            }
+
+            int fieldStart = -1;
+            int fieldEnd   = -1;
+            if (null != pattern) {
+                Matcher m = pattern.matcher(line).region(0, lineEnd);
+                if (m.find()) {
+                    int group  = m.groupCount() > 0 && m.start(1) >= 0 ? 1 : 0;
+                    fieldStart = m.start(group);
+                    fieldEnd   = m.end(group);
+                }
+            } else if (column == 0) {
+                int offset = line.indexOf(separator);
+                if (offset > -1 && offset < lineEnd) {
+                    fieldStart = offset + separator.length();
+                    fieldEnd   = lineEnd;
+                }
+            } else if (null != separator) {
+                fieldStart = 0;
+                for (int i = 1; i < column && fieldStart > -1; i++) {
+                    int offset = line.indexOf(separator, fieldStart);
+                    fieldStart = offset > -1 && offset < lineEnd ? offset + separator.length() : -1;
+                }
+                if (fieldStart > -1) {
+                    int offset = line.indexOf(separator, fieldStart);
+                    fieldEnd   = offset > -1 && offset < lineEnd ? offset : lineEnd;
+                }
+            } else {
+                // Columns separated by whitespace
+                int offset = 0;
+                for (int i = 1; i <= column; i++) {
+                    while (offset < lineEnd && Character.isWhitespace(line.charAt(offset))) {
+                        offset++;
+                    }
+                    if (offset == lineEnd) {
+                        break;
+                    }
+                    int start = offset;
+                    while (offset < lineEnd && !Character.isWhitespace(line.charAt(offset))) {
+                        offset++;
+                    }
+                    if (i == column) {
+                        fieldStart = start;
+                        fieldEnd   = offset;
+                    }
+                }
+            }
+
+            offsets[index++] = fieldStart;
+            offsets[index++] = fieldEnd;
+        }
+
+        return offsets;
+    }
+
+    /**
+     * @param  field
+     * @param  commonDelimiter  Common delimiter of the lines, or null
+     * @return String           Given (trimmed) field w/o trailing delimiter of the line (ex: "5," of a JSON or PHP array line)
+     */
+    private static String stripDelimiter(String field, @Nullable String commonDelimiter) {
+        int length = field.length();
+        if (length > 0) {
+            char lastChar = field.charAt(length - 1);
+            if ((null != commonDelimiter && commonDelimiter.charAt(0) == lastChar) || ',' == lastChar || ';' == lastChar) {
+                return field.substring(0, length - 1).trim();
+            }
+        }
+
+        return field;
+    }
+
+    /**
+     * Sort given lines by their field (lines w/o the field are sorted as having it empty), equal fields maintain the
+     * lines' order. The lines' common delimiter (ex: trailing comma) is not part of the field, it is maintained like by
+     * UtilsTextual.sortLinesNatural()
+     *
+     * @param  lines
+     * @param  reverse
+     * @param  sortingMode      Sorting mode of non-numeric fields, one of ShifterPreferences.SORTING_MODE_...
+     * @return List<String>     The sorted lines
+     */
+    public List<String> sort(List<String> lines, boolean reverse, int sortingMode) {
+        DelimiterDetector delimiterDetector = new DelimiterDetector(lines);
+        boolean isDelimitedLastLine = delimiterDetector.isDelimitedLastLine();
+        String commonDelimiter      = delimiterDetector.getCommonDelimiter();
+
+        int amountLines = lines.size();
+        int[] offsets   = extractFieldOffsets(lines);
+
+        final double[] numbers = new double[amountLines];
+        final String[] keys    = new String[amountLines];
+        final AlphanumComparator comparator = new AlphanumComparator(sortingMode);
+
+        Integer[] indices = new Integer[amountLines];
+        for (int index = 0; index < amountLines; index++) {
+            indices[index] = index;
+
+            String field = offsets[index * 2] < 0
+                    ? ""
+                    : stripDelimiter(lines.get(index).substring(offsets[index * 2], offsets[index * 2 + 1]).trim(), commonDelimiter);
+
+            numbers[index] = PATTERN_NUMBER.matcher(field).matches() ? Double.parseDouble(field) : Double.NaN;
+            if (Double.isNaN(numbers[index])) {
+                keys[index] = comparator.getSortKey(field);
+            }
+        }
+
+        Arrays.sort(indices, new Comparator<Integer>() {
+            public int compare(Integer index1, Integer index2) {
+                boolean isNumeric1 = null == keys[index1];
+                boolean isNumeric2 = null == keys[index2];
+
+                if (isNumeric1 && isNumeric2) {
+                    return Double.compare(numbers[index1], numbers[index2]);
+                }
+                if (isNumeric1 != isNumeric2) {
+                    return isNumeric1 ? -1 : 1;
+                }
+
+                return comparator.compareKeys(keys[index1], keys[index2]);
+            }
+        });
+
+        List<String> linesSorted = new ArrayList<String>(amountLines);
+        for (Integer index : indices) {
+            linesSorted.add(lines.get(index));
+        }
+        if (reverse) {
+            Collections.reverse(linesSorted);
+        }
+
+        if (delimiterDetector.isFoundDelimiter() && !isDelimitedLastLine) {
+            linesSorted = UtilsTextual.addDelimiter(linesSorted, commonDelimiter, false);
+        }
+
+        return linesSorted;
+    }
+}
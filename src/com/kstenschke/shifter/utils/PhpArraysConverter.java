@@ -0,0 +1,490 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.util.DocumentUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scanner of PHP code for array definitions in long "array(...)" versus short "[...]" syntax: detects and converts
+ * them by bracket matching in linear time, skipping string literals, heredocs, comments and inline HTML.
+ */
+public class PhpArraysConverter {
+
+    public static final int SYNTAX_NONE  = 0;
+    public static final int SYNTAX_LONG  = 1;
+    public static final int SYNTAX_SHORT = 2;
+
+    // Amount of edits from which on they are applied to the document in bulk mode (w/o updating editors per edit)
+    private static final int MIN_AMOUNT_EDITS_BULK_UPDATE = 100;
+
+    // Keywords after which "[" opens an array (and not an index access)
+    private static final String[] KEYWORDS_BEFORE_ARRAY = {"return", "yield", "echo", "print", "case", "and", "or", "xor", "else", "in", "new", "clone", "include", "require"};
+
+    /**
+     * Replacement of a range of the code
+     */
+    public static class Edit {
+        public final int offset;
+        public final int length;
+        public String replacement;
+
+        Edit(int offset, int length, String replacement) {
+            this.offset      = offset;
+            this.length      = length;
+            this.replacement = replacement;
+        }
+    }
+
+    /**
+     * Bracket enclosing the current offset during the conversion
+     */
+    private static class Bracket {
+        // Is an array to be converted?
+        final boolean isArray;
+        // Index of the bracket's own (opening) edit, if it is an array, or of the first edit inside it
+        final int indexEdits;
+
+        Bracket(boolean isArray, int indexEdits) {
+            this.isArray    = isArray;
+            this.indexEdits = indexEdits;
+        }
+    }
+
+    /**
+     * @param  str
+     * @return int      SYNTAX_LONG / SYNTAX_SHORT if the given string is (exactly) one array definition in that syntax,
+     *                  optionally followed by ";". Otherwise SYNTAX_NONE
+     */
+    public static int getArraySyntax(String str) {
+        int length = str.length();
+        int offsetOpen;
+        int syntax;
+        if (str.startsWith("[")) {
+            offsetOpen = 0;
+            syntax     = SYNTAX_SHORT;
+        } else {
+            offsetOpen = getOffsetOfLongArrayParenthesis(str, 0);
+            if (-1 == offsetOpen) {
+                return SYNTAX_NONE;
+            }
+            syntax = SYNTAX_LONG;
+        }
+
+        int offset = getOffsetAfterClosingBracket(str, offsetOpen);
+        if (-1 == offset) {
+            return SYNTAX_NONE;
+        }
+        while (offset < length && ';' == str.charAt(offset)) {
+            offset++;
+        }
+
+        return offset == length ? syntax : SYNTAX_NONE;
+    }
+
+    /**
+     * Convert all arrays (incl. nested ones) in given code from long to short syntax, or vice versa, in one pass
+     *
+     * @param  code
+     * @param  toShort  Convert "array(...)" to "[...]"? Otherwise: "[...]" to "array(...)"
+     * @return String
+     */
+    public static String convert(String code, boolean toShort) {
+        return applyEdits(code, getEdits(code, toShort, false));
+    }
+
+    /**
+     * @param  code         Text of a document range (ex: selection or whole file)
+     * @param  toShort      Convert "array(...)" to "[...]"? Otherwise: "[...]" to "array(...)"
+     * @return List<Edit>   Edits to convert all arrays (incl. nested ones) of the given code, to be applied via convertInDocument()
+     */
+    public static List<Edit> getEditsInDocument(String code, boolean toShort) {
+        return getEdits(code, toShort, isStartingInHtml(code));
+    }
+
+    /**
+     * Convert all arrays (incl. nested ones) in given range of the document, replacing only the converted brackets.
+     * The edits are applied last to first (keeping offsets of preceding edits valid), as one bulk update.
+     *
+     * @param  document
+     * @param  offsetStart
+     * @param  edits        Edits of the text of the document from the start offset on, see getEditsInDocument()
+     * @return int          Amount of converted arrays
+     */
+    public static int convertInDocument(final Document document, final int offsetStart, final List<Edit> edits) {
+        int amountEdits = 0;
+        for (Edit edit : edits) {
+            if (null != edit.replacement) {
+                amountEdits++;
+            }
+        }
+
+        DocumentUtil.executeInBulk(document, amountEdits > MIN_AMOUNT_EDITS_BULK_UPDATE, new Runnable() {
+            public void run() {
+                for (int index = edits.size() - 1; index >= 0; index--) {
+                    Edit edit = edits.get(index);
+                    if (null != edit.replacement) {
+                        document.replaceString(offsetStart + edit.offset, offsetStart + edit.offset + edit.length, edit.replacement);
+                    }
+                }
+            }
+        });
+
+        return amountEdits / 2;
+    }
+
+    /**
+     * @param  code
+     * @return boolean  Does the given code start w/ a PHP opening tag or inline HTML? (ex: whole file)
+     */
+    private static boolean isStartingInHtml(String code) {
+        String codeTrimmed = code.trim();
+
+        return codeTrimmed.startsWith("<") && !codeTrimmed.startsWith("<<<");
+    }
+
+    /**
+     * @param  code
+     * @param  edits    Edits, ascending by offset
+     * @return String
+     */
+    public static String applyEdits(String code, List<Edit> edits) {
+        StringBuilder converted = new StringBuilder(code.length() + edits.size() * 4);
+        int offsetCopied = 0;
+        for (Edit edit : edits) {
+            if (null != edit.replacement) {
+                converted.append(code, offsetCopied, edit.offset).append(edit.replacement);
+                offsetCopied = edit.offset + edit.length;
+            }
+        }
+
+        return converted.append(code, offsetCopied, code.length()).toString();
+    }
+
+    /**
+     * @param  code
+     * @param  toShort
+     * @param  isStartingInHtml     Is the code inline HTML until the first PHP opening tag?
+     * @return List<Edit>           Replacements of the opening and closing brackets of all arrays to be converted, ascending
+     *                              by offset. Cancelled edits (ex: inside short-syntax list destructuring) have no replacement
+     */
+    public static List<Edit> getEdits(String code, boolean toShort, boolean isStartingInHtml) {
+        List<Edit> edits       = new ArrayList<Edit>();
+        List<Bracket> brackets = new ArrayList<Bracket>();
+
+        char bracketOpen  = toShort ? '(' : '[';
+        char bracketClose = toShort ? ')' : ']';
+
+        int length = code.length();
+        int offset = isStartingInHtml ? getOffsetAfterOpeningTag(code, 0) : 0;
+        // Last character preceding the current offset, outside of whitespace and comments
+        char previousChar      = 0;
+        int offsetPreviousChar = -1;
+        while (offset < length) {
+            if ('?' == code.charAt(offset) && code.startsWith("?>", offset)) {
+                // Skip inline HTML until the next opening tag
+                offset = getOffsetAfterOpeningTag(code, offset + 2);
+                previousChar       = ';';
+                offsetPreviousChar = -1;
+                continue;
+            }
+
+            int offsetAfter = getOffsetAfterStringOrComment(code, offset);
+            if (offsetAfter > offset) {
+                if (!isCommentStart(code, offset)) {
+                    previousChar       = code.charAt(offsetAfter - 1);
+                    offsetPreviousChar = offsetAfter - 1;
+                }
+                offset = offsetAfter;
+                continue;
+            }
+
+            char character = code.charAt(offset);
+            if (toShort && ('a' == character || 'A' == character) && !isIdentifierChar(previousChar, offsetPreviousChar, offset)) {
+                int offsetParenthesis = getOffsetOfLongArrayParenthesis(code, offset);
+                if (-1 != offsetParenthesis && !isMemberAccess(code, offsetPreviousChar) && !"function".equals(getWordEndingAt(code, offsetPreviousChar))) {
+                    brackets.add(new Bracket(true, edits.size()));
+                    edits.add(new Edit(offset, offsetParenthesis + 1 - offset, "["));
+                    previousChar       = '(';
+                    offsetPreviousChar = offsetParenthesis;
+                    offset             = offsetParenthesis + 1;
+                    continue;
+                }
+            }
+
+            if (bracketOpen == character) {
+                // "#[" opens an attribute, not an array
+                boolean isAttribute = '#' == previousChar && offsetPreviousChar == offset - 1;
+                boolean isArray     = !toShort && !isAttribute && !isIndexAccess(code, previousChar, offsetPreviousChar);
+                brackets.add(new Bracket(isArray, edits.size()));
+                if (isArray) {
+                    edits.add(new Edit(offset, 1, "array("));
+                }
+            } else if (bracketClose == character && !brackets.isEmpty()) {
+                Bracket bracket = brackets.remove(brackets.size() - 1);
+                if (bracket.isArray) {
+                    if (!toShort && isFollowedByAssignment(code, offset + 1)) {
+                        // Short-syntax list destructuring, ex: "[$a, $b] = $pair;" - cancel conversions within
+                        for (int index = bracket.indexEdits; index < edits.size(); index++) {
+                            edits.get(index).replacement = null;
+                        }
+                    } else {
+                        edits.add(new Edit(offset, 1, toShort ? "]" : ")"));
+                    }
+                }
+            }
+
+            if (!Character.isWhitespace(character)) {
+                previousChar       = character;
+                offsetPreviousChar = offset;
+            }
+            offset++;
+        }
+
+        // Arrays w/o closing bracket remain unconverted
+        for (Bracket bracket : brackets) {
+            if (bracket.isArray) {
+                edits.get(bracket.indexEdits).replacement = null;
+            }
+        }
+
+        return edits;
+    }
+
+    /**
+     * @param  code
+     * @param  offset
+     * @return int      Offset of the opening parenthesis, if a long-syntax array ("array" + optional whitespace + "(")
+     *                  starts at the given offset, otherwise -1
+     */
+    private static int getOffsetOfLongArrayParenthesis(String code, int offset) {
+        int length = code.length();
+        if (!code.regionMatches(true, offset, "array", 0, 5)) {
+            return -1;
+        }
+        offset += 5;
+        while (offset < length && Character.isWhitespace(code.charAt(offset))) {
+            offset++;
+        }
+
+        return offset < length && '(' == code.charAt(offset) ? offset : -1;
+    }
+
+    /**
+     * @param  code
+     * @param  offsetOpen   Offset of an opening "(" or "["
+     * @return int          Offset after the matching closing bracket, or -1 if unclosed
+     */
+    private static int getOffsetAfterClosingBracket(String code, int offsetOpen) {
+        char bracketOpen  = code.charAt(offsetOpen);
+        char bracketClose = '(' == bracketOpen ? ')' : ']';
+
+        int length = code.length();
+        int depth  = 0;
+        int offset = offsetOpen;
+        while (offset < length) {
+            int offsetAfter = getOffsetAfterStringOrComment(code, offset);
+            if (offsetAfter > offset) {
+                offset = offsetAfter;
+                continue;
+            }
+            char character = code.charAt(offset++);
+            if (bracketOpen == character) {
+                depth++;
+            } else if (bracketClose == character && --depth == 0) {
+                return offset;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @return int      Offset after the first PHP opening tag ("<?php", "<?=" or "<?") from the given offset on, or the code's length
+     */
+    private static int getOffsetAfterOpeningTag(String code, int offset) {
+        int offsetTag = code.indexOf("<?", offset);
+        if (-1 == offsetTag) {
+            return code.length();
+        }
+        offsetTag += 2;
+        if (code.regionMatches(true, offsetTag, "php", 0, 3)) {
+            return offsetTag + 3;
+        }
+
+        return code.startsWith("=", offsetTag) ? offsetTag + 1 : offsetTag;
+    }
+
+    /**
+     * @param  code
+     * @param  offset
+     * @return int      Offset after the string literal, heredoc / nowdoc or comment starting at the given offset, or the
+     *                  given offset if none starts there
+     */
+    static int getOffsetAfterStringOrComment(String code, int offset) {
+        int length = code.length();
+        char character = code.charAt(offset);
+
+        if ('"' == character || '\'' == character || '`' == character) {
+            int offsetEnd = offset + 1;
+            while (offsetEnd < length && code.charAt(offsetEnd) != character) {
+                offsetEnd += '\\' == code.charAt(offsetEnd) ? 2 : 1;
+            }
+            return Math.min(offsetEnd + 1, length);
+        }
+        if ('<' == character && code.startsWith("<<<", offset)) {
+            return getOffsetAfterHeredoc(code, offset);
+        }
+        if (isCommentStart(code, offset)) {
+            if ('/' == character && '*' == code.charAt(offset + 1)) {
+                int offsetEnd = code.indexOf("*/", offset + 2);
+                return -1 == offsetEnd ? length : offsetEnd + 2;
+            }
+            // Line comment: "//" or "#", ends at the line end or closing PHP tag
+            int offsetEnd = offset + 1;
+            while (offsetEnd < length && '\n' != code.charAt(offsetEnd) && !code.startsWith("?>", offsetEnd)) {
+                offsetEnd++;
+            }
+            return offsetEnd;
+        }
+
+        return offset;
+    }
+
+    /**
+     * @param  code
+     * @param  offset   Offset of "<<<"
+     * @return int      Offset after the closing identifier of the heredoc / nowdoc, or the given offset if none starts there
+     */
+    private static int getOffsetAfterHeredoc(String code, int offset) {
+        int length          = code.length();
+        int offsetIdentifier = offset + 3;
+        while (offsetIdentifier < length && (' ' == code.charAt(offsetIdentifier) || '\t' == code.charAt(offsetIdentifier))) {
+            offsetIdentifier++;
+        }
+        if (offsetIdentifier < length && ('"' == code.charAt(offsetIdentifier) || '\'' == code.charAt(offsetIdentifier))) {
+            offsetIdentifier++;
+        }
+        int offsetIdentifierEnd = offsetIdentifier;
+        while (offsetIdentifierEnd < length && Character.isJavaIdentifierPart(code.charAt(offsetIdentifierEnd))) {
+            offsetIdentifierEnd++;
+        }
+        if (offsetIdentifierEnd == offsetIdentifier) {
+            return offset;
+        }
+        String identifier = code.substring(offsetIdentifier, offsetIdentifierEnd);
+
+        // Closing identifier: first on its line (optionally indented), not followed by an identifier character
+        int offsetLine = code.indexOf('\n', offsetIdentifierEnd);
+        while (-1 != offsetLine) {
+            int offsetClosing = offsetLine + 1;
+            while (offsetClosing < length && (' ' == code.charAt(offsetClosing) || '\t' == code.charAt(offsetClosing))) {
+                offsetClosing++;
+            }
+            int offsetAfterClosing = offsetClosing + identifier.length();
+            if (code.startsWith(identifier, offsetClosing)
+                    && (offsetAfterClosing == length || !Character.isJavaIdentifierPart(code.charAt(offsetAfterClosing)))) {
+                return offsetAfterClosing;
+            }
+            offsetLine = code.indexOf('\n', offsetClosing);
+        }
+
+        return length;
+    }
+
+    private static boolean isCommentStart(String code, int offset) {
+        char character = code.charAt(offset);
+        if ('#' == character) {
+            // "#[" starts an attribute
+            return offset + 1 >= code.length() || '[' != code.charAt(offset + 1);
+        }
+
+        return '/' == character && offset + 1 < code.length() && ('/' == code.charAt(offset + 1) || '*' == code.charAt(offset + 1));
+    }
+
+    /**
+     * @return boolean  Is the given previous character part of an identifier (or variable) that is directly followed by the given offset?
+     */
+    private static boolean isIdentifierChar(char previousChar, int offsetPreviousChar, int offset) {
+        return offsetPreviousChar > -1 && offsetPreviousChar == offset - 1 && (Character.isJavaIdentifierPart(previousChar) || '$' == previousChar || '\\' == previousChar);
+    }
+
+    /**
+     * @param  code
+     * @param  previousChar
+     * @param  offsetPreviousChar
+     * @return boolean              Is a "[" following the given character an index access (ex: "$items[0]"), or list destructuring after "as"?
+     */
+    private static boolean isIndexAccess(String code, char previousChar, int offsetPreviousChar) {
+        if (0 == previousChar) {
+            return false;
+        }
+        if (Character.isJavaIdentifierPart(previousChar)) {
+            String word = getWordEndingAt(code, offsetPreviousChar);
+            if (word.startsWith("$") || word.equalsIgnoreCase("as")) {
+                return true;
+            }
+            for (String keyword : KEYWORDS_BEFORE_ARRAY) {
+                if (keyword.equalsIgnoreCase(word)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        return ')' == previousChar || ']' == previousChar || '}' == previousChar
+            || '"' == previousChar || '\'' == previousChar;
+    }
+
+    /**
+     * @return boolean  Is the character at the given offset the end of "->" or "::" (ex: method named "array")?
+     */
+    private static boolean isMemberAccess(String code, int offsetPreviousChar) {
+        return offsetPreviousChar > 0
+            && (code.startsWith("->", offsetPreviousChar - 1) || code.startsWith("::", offsetPreviousChar - 1));
+    }
+
+    /**
+     * @return String   Identifier (incl. "$" prefix of variables) ending at the given offset
+     */
+    private static String getWordEndingAt(String code, int offsetEnd) {
+        if (offsetEnd < 0) {
+            return "";
+        }
+        int offsetStart = offsetEnd;
+        while (offsetStart > 0 && (Character.isJavaIdentifierPart(code.charAt(offsetStart - 1)) || '$' == code.charAt(offsetStart - 1))) {
+            offsetStart--;
+        }
+
+        return code.substring(offsetStart, offsetEnd + 1);
+    }
+
+    /**
+     * @return boolean  Is the given offset followed by (whitespace and) an assignment "=", but not "==" or "=>"?
+     */
+    private static boolean isFollowedByAssignment(String code, int offset) {
+        int length = code.length();
+        while (offset < length && Character.isWhitespace(code.charAt(offset))) {
+            offset++;
+        }
+
+        return offset < length && '=' == code.charAt(offset)
+            && (offset + 1 == length || ('=' != code.charAt(offset + 1) && '>' != code.charAt(offset + 1)));
+    }
+}
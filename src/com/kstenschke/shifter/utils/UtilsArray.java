@@ -18,6 +18,7 @@ package com.kstenschke.shifter.utils;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -105,16 +106,37 @@ public class UtilsArray {
         return mergeArrays(mergeArrays(array1, array2), array3);
     }
 
+    /**
+     * Merge two lists of strings, w/o duplicates
+     *
+     * @param list1 List of strings
+     * @param list2 List of strings
+     * @return List<String>  Merged list containing each of the elements of list1 and list2 once, in order of appearance
+     */
+    public static List<String> mergeLists(List<String> list1, List<String> list2) {
+        LinkedHashSet<String> merged = new LinkedHashSet<String>(list1);
+        merged.addAll(list2);
+
+        return new ArrayList<String>(merged);
+    }
+
     /**
      * @param  array
      * @return boolean
      */
     public static boolean hasDuplicateItems(String[] array) {
-        for (int j = 0; j < array.length; j++) {
-            for (int k = j + 1; k < array.length; k++) {
-                if (array[k].equals(array[j])) {
-                    return true;
-                }
+        return hasDuplicateItems(Arrays.asList(array));
+    }
+
+    /**
+     * @param  items
+     * @return boolean
+     */
+    public static boolean hasDuplicateItems(List<String> items) {
+        HashSet<String> uniqueItems = new HashSet<String>(items.size() * 2);
+        for (String item : items) {
+            if (!uniqueItems.add(item)) {
+                return true;
             }
         }
 
@@ -123,9 +145,17 @@ public class UtilsArray {
 
     /**
      * @param  items
-     * @return String[]
+     * @return String[]     Given items w/o duplicates, in order of their first appearance
      */
     public static String[] reduceDuplicateItems(String[] items) {
-        return new HashSet<String>(Arrays.asList(items)).toArray(new String[0]);
+        return new LinkedHashSet<String>(Arrays.asList(items)).toArray(new String[0]);
+    }
+
+    /**
+     * @param  items
+     * @return List<String>     Given items w/o duplicates, in order of their first appearance
+     */
+    public static List<String> reduceDuplicateItems(List<String> items) {
+        return new ArrayList<String>(new LinkedHashSet<String>(items));
     }
-}
\ No newline at end of file
+}
@@ -15,18 +15,25 @@
  */
 package com.kstenschke.shifter.utils;
 
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
 import com.intellij.openapi.editor.Document;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.codeStyle.CodeStyleManager;
 import com.intellij.psi.util.PsiUtilBase;
 import com.kstenschke.shifter.ShifterPreferences;
+import com.kstenschke.shifter.resources.StaticTexts;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Collection;
 
 public class UtilsEnvironment {
 
@@ -56,6 +63,24 @@ public class UtilsEnvironment {
         return true;
     }
 
+    /**
+     * Reformat only the given ranges of the file in the editor (ex: the blocks changed by sorting), in one pass
+     *
+     * @param  editor
+     * @param  project
+     * @param  ranges
+     * @return boolean
+     */
+    public static boolean reformatSubStrings(Editor editor, Project project, Collection<TextRange> ranges) {
+        PsiFile psiFile = PsiUtilBase.getPsiFileInEditor(editor, project);
+        if (psiFile == null) {
+            return false;
+        }
+
+        CodeStyleManager.getInstance(project).reformatText(psiFile, ranges);
+        return true;
+    }
+
     /**
      * @param   editor
      * @param   idDialog
@@ -83,4 +108,17 @@ public class UtilsEnvironment {
         dialog.pack();
         dialog.setVisible(true);
     }
-}
\ No newline at end of file
+
+    /**
+     * Show non-blocking (balloon) notification
+     *
+     * @param project   Nullable
+     * @param title
+     * @param message
+     */
+    public static void notify(@Nullable Project project, String title, String message) {
+        Notifications.Bus.notify(
+                new Notification(StaticTexts.NOTIFICATION_GROUP_ID, title, message, NotificationType.INFORMATION),
+                project);
+    }
+}
@@ -73,6 +73,12 @@ public class UtilsFile {
         return filenameEndsWithExtension(filename) && extractFileExtension(filename).matches("(css|scss|sass|less|styl)");
     }
 
+    public static boolean isJavaScriptFile(@Nullable String filename) {
+        String extension = extractFileExtension(filename, true);
+
+        return null != extension && extension.matches("(js|jsx|mjs|ts|tsx)");
+    }
+
     /**
      * @param  is       Input stream
      * @return String   Full contents of given stream as string
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011-2017 Kay Stenschke
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kstenschke.shifter.utils;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static helper methods for finding declarations in JavaScript code.
+ * Scanning works directly on the given text (no copies of it are made) and stops at the first found declaration.
+ */
+public class UtilsJavaScript {
+
+    // Method as object property ("name: function"), or ES6 method shorthand ("name(arg1, arg2) {")
+    private static final Pattern PATTERN_METHOD = Pattern.compile(
+            "(?<![0-9a-zA-Z_$.])([a-zA-Z_$][0-9a-zA-Z_$]*)\\s*(?::\\s*(?:async\\s+)?function\\b|\\([^()]*\\)\\s*\\{)");
+
+    private static final Pattern PATTERN_CLASS = Pattern.compile(
+            "(?<![0-9a-zA-Z_$.])class\\s+([a-zA-Z_$][0-9a-zA-Z_$]*)");
+
+    // Keywords followed by parenthesis and a block, that do not declare a method
+    private static final String KEYWORDS_NON_METHOD = ",catch,for,function,if,switch,while,with,";
+
+    /**
+     * @param  text     JavaScript source code
+     * @param  offset   Offset to start scanning from
+     * @return String   Name of the first method declared after the given offset, or null
+     */
+    @Nullable
+    public static String findNextMethodName(CharSequence text, int offset) {
+        Matcher m = PATTERN_METHOD.matcher(text);
+        m.region(offset, text.length()).useTransparentBounds(true);
+
+        while (m.find()) {
+            String name = m.group(1);
+            if (!KEYWORDS_NON_METHOD.contains("," + name + ",")) {
+                return name;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param  text     JavaScript source code
+     * @param  offset   Offset to start scanning from
+     * @return String   Name of the first class declared after the given offset, or null
+     */
+    @Nullable
+    public static String findNextClassName(CharSequence text, int offset) {
+        Matcher m = PATTERN_CLASS.matcher(text);
+        m.region(offset, text.length()).useTransparentBounds(true);
+
+        return m.find() ? m.group(1) : null;
+    }
+}
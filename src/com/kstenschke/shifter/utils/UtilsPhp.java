@@ -15,7 +15,10 @@
  */
 package com.kstenschke.shifter.utils;
 
+import com.intellij.openapi.project.Project;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
 import java.util.List;
 
 /**
@@ -30,42 +33,16 @@ public class UtilsPhp {
      * @return List<String>     All PHP var names
      */
     @NotNull
-    public static List<String> extractPhpVariables(String str) {
+    public static List<String> extractPhpVariables(CharSequence str) {
         return UtilsTextual.getPregMatches(str, "\\$[a-zA-Z0-9_]+");
     }
 
     /**
      * @param  str
+     * @param  project  Project whose custom naming rules precede the built-in ones, or null
      * @return Name of primitive (PHP) data type
      */
-    public static String guessPhpDataTypeByName(String str) {
-        str = str.toLowerCase();
-
-        if (str.matches("\\w*name|\\w*title|\\w*url")) {
-            return "string";
-        }
-        if (str.matches("(\\w*delim(iter)*|\\w*dir(ectory)*|\\w*domain|\\w*key|\\w*link|\\w*name|\\w*path\\w*|\\w*prefix|\\w*suffix|charlist|comment|\\w*file(name)*|format|glue|haystack|html|intput|locale|message|name|needle|output|replace(ment)*|salt|separator|str(ing)*|url)\\d*")) {
-            return "string";
-        }
-        if (str.matches("(arr(ay)|\\w*pieces|\\w*list|\\w*items|\\w*ids)\\d*")) {
-            return "array";
-        }
-        if (str.matches("(\\w*day|\\w*end|\\w*expire|\\w*handle|\\w*height|\\w*hour(s)*|\\w*id|\\w*index|\\w*len(gth)*|\\w*mask|\\w*pointer|\\w*quality|\\w*s(e)*ize|\\w*start|\\w*step(s)*|tick|\\w*year\\w*|ascii|base|blue|ch|chunklen|fp|green|len|limit|\\w*max|\\w*min|\\w*mode|month|\\w*multiplier|now|num|offset|\\w*op(eration)*|\\w*pos(ition)*|red|\\w*time(stamp)*|week|\\w*wid(th)*|x|y)\\d*")) {
-            return "int";
-        }
-        if (str.matches("(\\w*gamma|percent)\\d*")) {
-            return "float";
-        }
-        if (str.matches("(\\wmodel|\\w*obj(ect)*)\\d*")) {
-            return "Object";
-        }
-        if (str.matches("(\\w*s)\\d*|\\w*arr(ay)*|\\w*items|\\w*data|data\\w*")) {
-            return "array";
-        }
-        if (str.matches("(do\\w*|has\\w+|is\\w+|return\\w*|should\\w*)")) {
-            return "bool";
-        }
-
-        return "unknown";
+    public static String guessPhpDataTypeByName(String str, @Nullable Project project) {
+        return DataTypeGuesser.guessPhpDataType(str, project);
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,7 @@
 package com.kstenschke.shifter.utils;
 
 import com.intellij.openapi.editor.Document;
+import com.kstenschke.shifter.ShifterPreferences;
 import com.kstenschke.shifter.models.comparators.AlphanumComparator;
 import com.kstenschke.shifter.models.shiftableTypes.OperatorSign;
 import org.apache.commons.lang.StringUtils;
@@ -24,7 +25,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -62,10 +65,25 @@ public class UtilsTextual {
      * @return Given lines sorted alphabetically ascending / descending
      */
     public static List<String> sortLinesNatural(List<String> lines, boolean reverse) {
+        return sortLinesNatural(lines, reverse, false);
+    }
+
+    /**
+     * @param  lines
+     * @param  reverse
+     * @param  isParallel   Sort in parallel? (for very large amounts of lines)
+     * @return Given lines sorted alphabetically ascending / descending
+     */
+    public static List<String> sortLinesNatural(List<String> lines, boolean reverse, boolean isParallel) {
         DelimiterDetector delimiterDetector = new DelimiterDetector(lines);
         boolean isDelimitedLastLine = delimiterDetector.isDelimitedLastLine();
 
-        Collections.sort(lines, new AlphanumComparator());
+        AlphanumComparator comparator = new AlphanumComparator(ShifterPreferences.getSortingMode());
+        if (isParallel) {
+            comparator.sortParallel(lines);
+        } else {
+            comparator.sort(lines);
+        }
         if (reverse) {
             Collections.reverse(lines);
         }
@@ -534,7 +552,7 @@ public class UtilsTextual {
      * @param  offset
      * @return String
      */
-    public static String getLineAtOffset(String str, int offset) {
+    public static String getLineAtOffset(CharSequence str, int offset) {
         int lenText      = str.length();
 
         int offsetStart = offset;
@@ -547,7 +565,7 @@ public class UtilsTextual {
             offsetEnd++;
         }
 
-        return str.substring(offsetStart, offsetEnd).trim();
+        return str.subSequence(offsetStart, offsetEnd).toString().trim();
     }
 
     /**
@@ -601,48 +619,6 @@ public class UtilsTextual {
         return numberString;
     }
 
-    /**
-     * Check given (alphabetically sorted) lines for any line(s) being duplicated
-     *
-     * @param  lines
-     * @return boolean
-     */
-    public static boolean hasDuplicateLines(String lines) {
-        String[] linesArray = lines.split("\n");
-        String previousLine = "";
-
-        int index = 0;
-        for(String currentLine : linesArray) {
-            if (index > 0 && currentLine.equals(previousLine)) {
-                return true;
-            }
-            index++;
-            previousLine = currentLine;
-        }
-
-        return false;
-    }
-
-    public static String reduceDuplicateLines(String lines) {
-        String[] linesArray = lines.split("\n");
-
-        String[] resultLines = new String[linesArray.length];
-        int index = 0;
-        int resultIndex = 0;
-        String previousLine = "";
-
-        for(String currentLine : linesArray) {
-            if (index == 0 || !currentLine.equals(previousLine)) {
-                resultLines[resultIndex] = currentLine;
-                resultIndex++;
-            }
-            index++;
-            previousLine = currentLine;
-        }
-
-        return StringUtils.join(resultLines, "\n");
-    }
-
     public static String getLeadWhitespace(@Nullable String str) {
         if (null == str) {
             return null;
@@ -659,7 +635,7 @@ public class UtilsTextual {
     }
 
     @NotNull
-    public static List<String> extractQuotedStrings(String text, String quoteCharacter) {
+    public static List<String> extractQuotedStrings(CharSequence text, String quoteCharacter) {
         return getPregMatches(
                 text,
                 "(?<=" + quoteCharacter + ")[a-zA-Z0-9_]+(?=" + quoteCharacter + ")"
@@ -667,19 +643,17 @@ public class UtilsTextual {
     }
 
     @NotNull
-    public static List<String> getPregMatches(@Nullable String str, String pattern) {
+    public static List<String> getPregMatches(@Nullable CharSequence str, String pattern) {
         if (null == str) {
             return new ArrayList<String>();
         }
         Matcher m = Pattern.compile(pattern).matcher(str);
 
-        List<String> allMatches = new ArrayList<String>();
+        Set<String> allMatches = new LinkedHashSet<String>();
         while (m.find()) {
-            if (!allMatches.contains(m.group())) {
-                allMatches.add(m.group());
-            }
+            allMatches.add(m.group());
         }
-        return allMatches;
+        return new ArrayList<String>(allMatches);
     }
 
     /**
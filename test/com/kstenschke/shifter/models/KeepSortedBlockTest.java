@@ -0,0 +1,50 @@
+package com.kstenschke.shifter.models;
+
+import com.kstenschke.shifter.models.comparators.AlphanumComparator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class KeepSortedBlockTest {
+
+    @Test
+    public void testGetInsertionIndices() throws Exception {
+        List<String> linesSorted = Arrays.asList("import a\n", "import c\n", "import e\n");
+
+        List<String> linesEdited = new ArrayList<String>(Arrays.asList("import f\n", "import 0\n", "import d\n", "import b\n"));
+        assertArrayEquals(new int[]{0, 1, 2, 3}, KeepSortedBlock.getInsertionIndices(linesSorted, linesEdited, new AlphanumComparator()));
+        assertEquals(Arrays.asList("import 0\n", "import b\n", "import d\n", "import f\n"), linesEdited);
+
+        // Natural order, inserted after equal lines
+        linesSorted = Arrays.asList("item2\n", "item10\n");
+        linesEdited = new ArrayList<String>(Arrays.asList("item10\n", "item9\n", "item1\n"));
+        assertArrayEquals(new int[]{0, 1, 2}, KeepSortedBlock.getInsertionIndices(linesSorted, linesEdited, new AlphanumComparator()));
+        assertEquals(Arrays.asList("item1\n", "item9\n", "item10\n"), linesEdited);
+    }
+
+    @Test
+    public void testGetInsertionIndicesPreparesKeysOnce() throws Exception {
+        List<String> linesSorted = new ArrayList<String>();
+        for (int index = 0; index < 1000; index++) {
+            linesSorted.add(String.format("line %04d\n", index));
+        }
+        List<String> linesEdited = new ArrayList<String>(Arrays.asList("line 0500\n", "line 0501\n", "line 0502\n"));
+
+        final int[] amountSortKeys = {0};
+        AlphanumComparator comparator = new AlphanumComparator() {
+            @Override
+            public String getSortKey(String str) {
+                amountSortKeys[0]++;
+                return super.getSortKey(str);
+            }
+        };
+
+        assertArrayEquals(new int[]{501, 502, 503}, KeepSortedBlock.getInsertionIndices(linesSorted, linesEdited, comparator));
+        // One key per edited line, one per probed sorted line: far fewer than the block's lines
+        assertTrue(amountSortKeys[0] <= linesEdited.size() + 3 * 11);
+    }
+}
@@ -0,0 +1,38 @@
+package com.kstenschke.shifter.models;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class VocabularyIndexTest {
+
+    @Test
+    public void testExtractVocabularyQuotedStrings() throws Exception {
+        Map<String, Void> vocabulary = VocabularyIndex.extractVocabulary("a = 'foo'; b = \"bar\"; c = `baz`; d = 'foo';", false);
+        assertEquals(new HashSet<String>(Arrays.asList("'foo", "\"bar", "`baz")), vocabulary.keySet());
+
+        // Same string in different quote characters: one key per quote character
+        vocabulary = VocabularyIndex.extractVocabulary("'foo' \"foo\"", false);
+        assertEquals(new HashSet<String>(Arrays.asList("'foo", "\"foo")), vocabulary.keySet());
+
+        // Only strings of word characters
+        vocabulary = VocabularyIndex.extractVocabulary("'foo bar' 'foo-bar' '' 'foo_1'", false);
+        assertEquals(new HashSet<String>(Arrays.asList("'foo_1")), vocabulary.keySet());
+    }
+
+    @Test
+    public void testExtractVocabularyPhpVariables() throws Exception {
+        String php = "$foo = $bar['baz'] . $foo_1;";
+
+        assertEquals(
+                new HashSet<String>(Arrays.asList("$foo", "$bar", "$foo_1", "'baz")),
+                VocabularyIndex.extractVocabulary(php, true).keySet());
+
+        // Variables are extracted from PHP files only
+        assertEquals(new HashSet<String>(Arrays.asList("'baz")), VocabularyIndex.extractVocabulary(php, false).keySet());
+    }
+}
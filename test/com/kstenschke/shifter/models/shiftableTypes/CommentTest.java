@@ -0,0 +1,59 @@
+package com.kstenschke.shifter.models.shiftableTypes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CommentTest {
+
+    @Test
+    public void testShiftMultipleBlockCommentLinesMerges() throws Exception {
+        assertEquals("// foo bar ", Comment.shiftMultipleBlockCommentLines("/*\n * foo\n * bar\n */", true));
+        assertEquals("// foo bar ", Comment.shiftMultipleBlockCommentLines("/** foo\n * bar */", true));
+        // Trailing newlines of the selection
+        assertEquals("// foo ", Comment.shiftMultipleBlockCommentLines("/*\n * foo\n */\n\n", true));
+        // Empty " * " lines are kept as "*"
+        assertEquals("// foo * bar ", Comment.shiftMultipleBlockCommentLines("/**\n * foo\n * \n * bar\n */\n", true));
+    }
+
+    @Test
+    public void testShiftMultipleBlockCommentLinesSplits() throws Exception {
+        assertEquals("// foo\n// bar", Comment.shiftMultipleBlockCommentLines("/*\n * foo\n * bar\n */", false));
+        assertEquals("// foo\n// bar", Comment.shiftMultipleBlockCommentLines("  /**\n   * foo\n   * bar\n   */", false));
+        // Trailing newlines of the selection
+        assertEquals("// foo", Comment.shiftMultipleBlockCommentLines("/*\n * foo\n */\n\n", false));
+        // Empty " * " lines are kept as "*"
+        assertEquals("// foo\n// *\n// bar", Comment.shiftMultipleBlockCommentLines("/**\n * foo\n *\n * bar\n */", false));
+    }
+
+    @Test
+    public void testConvertMultipleLineCommentsToBlockComment() throws Exception {
+        assertEquals("/**\n * foo\n * bar\n */", Comment.convertMultipleLineCommentsToBlockComment("// foo\n// bar"));
+        assertEquals("/**\n * foo\n * bar\n */", Comment.convertMultipleLineCommentsToBlockComment("  // foo\n  //bar  \n"));
+        // Trailing newlines of the selection
+        assertEquals("/**\n * b\n * a\n */", Comment.convertMultipleLineCommentsToBlockComment("// b\n// a\n\n"));
+    }
+
+    @Test
+    public void testMergeMultipleLineComments() throws Exception {
+        assertEquals("// foo bar", Comment.mergeMultipleLineComments("// foo\n// bar"));
+        assertEquals("// foo bar", Comment.mergeMultipleLineComments("  // foo\n  //bar  \n"));
+        // Trailing newlines of the selection
+        assertEquals("// b a c", Comment.mergeMultipleLineComments("// b\n// a\n// c\n\n"));
+    }
+
+    @Test
+    public void testSortLineComments() throws Exception {
+        assertEquals("// a\n// b\n// c", Comment.sortLineComments("// b\n// a\n// c\n\n", false));
+        assertEquals("// c\n// b\n// a", Comment.sortLineComments("// b\n// a\n// c", true));
+    }
+
+    @Test
+    public void testIsMultipleSingleLineComments() throws Exception {
+        assertTrue(Comment.isMultipleSingleLineComments("// foo\n// bar"));
+        assertTrue(Comment.isMultipleSingleLineComments("  // foo\n  //bar  \n\n"));
+
+        assertFalse(Comment.isMultipleSingleLineComments("// foo"));
+        assertFalse(Comment.isMultipleSingleLineComments("// foo\nbar"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.kstenschke.shifter.models.shiftableTypes;
+
+import com.intellij.openapi.util.TextRange;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CssTest {
+
+    @Test
+    public void testGetShiftedSortsDeclarationsPerBlock() throws Exception {
+        assertEquals(
+                "a {\n  b: 1;\n  color: red;\n}\n.b, .c {\n  a: 2;\n  x: 1;\n}\n",
+                Css.getShifted("a {\n  color: red;\n  b: 1;\n}\n.b, .c {\n  x: 1;\n  a: 2\n}\n"));
+
+        // Identical blocks
+        assertEquals(
+                "a {\n  a: 1;\n  b: 2;\n}\nb {\n  a: 1;\n  b: 2;\n}",
+                Css.getShifted("a {\n  b: 2;\n  a: 1;\n}\nb {\n  b: 2;\n  a: 1;\n}"));
+    }
+
+    @Test
+    public void testGetShiftedSkipsStringsCommentsAndNesting() throws Exception {
+        assertEquals(
+                "a {\n  b: 2;\n  /* z */\n  z: url(\"x;}{\");\n}",
+                Css.getShifted("a {\n  /* z */\n  z: url(\"x;}{\");\n  b: 2;\n}"));
+        assertEquals(
+                "@media print {\n  .#{$n} {\n    a: 1;\n    z: #{$a};\n  }\n}",
+                Css.getShifted("@media print {\n  .#{$n} {\n    z: #{$a};\n    a: 1;\n  }\n}"));
+    }
+
+    @Test
+    public void testGetShiftedSortsDeclarationsBetweenNestedRules() throws Exception {
+        // SCSS: declarations of a rule are sorted around its nested rules, which keep their position
+        assertEquals(
+                ".x {\n  a: 2;\n  z: 1;\n  &:hover {\n    b: 1;\n    c: 2;\n  }\n  m: 3;\n  y: 4;\n}",
+                Css.getShifted(".x {\n  z: 1;\n  a: 2;\n  &:hover {\n    c: 2;\n    b: 1;\n  }\n  y: 4;\n  m: 3;\n}"));
+        // Selector of the nested rule spanning multiple lines, declaration w/ interpolation
+        assertEquals(
+                ".x {\n  a: #{$b};\n  z: 1;\n\n  .y,\n  .z {\n    a: 1;\n  }\n}",
+                Css.getShifted(".x {\n  z: 1;\n  a: #{$b};\n\n  .y,\n  .z {\n    a: 1;\n  }\n}"));
+    }
+
+    @Test
+    public void testGetShiftedKeepsEmptyLinesInPlace() throws Exception {
+        assertEquals(
+                "a {\n  b: 1;\n  c: 2;\n\n  z: 3;\n}",
+                Css.getShifted("a {\n  z: 3;\n  c: 2;\n\n  b: 1;\n}"));
+    }
+
+    @Test
+    public void testGetShiftedReportsChangedBlocks() throws Exception {
+        List<TextRange> changedRanges = new ArrayList<TextRange>();
+        String shifted = Css.getShifted("a {\n  a: 1;\n}\nb {\n  b: 2;\n  a: 1;\n}\n", changedRanges);
+
+        // Only the 2nd block changed, range includes its braces
+        assertEquals(1, changedRanges.size());
+        assertEquals("{\n  a: 1;\n  b: 2;\n}", shifted.substring(changedRanges.get(0).getStartOffset(), changedRanges.get(0).getEndOffset()));
+    }
+
+    @Test
+    public void testGetShiftedParallelEqualsSequential() throws Exception {
+        StringBuilder css = new StringBuilder();
+        for (int index = 0; index < 2000; index++) {
+            css.append(".c").append(index).append(" {\n  z-index: ").append(index % 7).append(";\n");
+            if (index % 3 == 0) {
+                css.append("  /* note */\n  content: \"}{").append(index).append("\";\n");
+            }
+            css.append("  color: #").append(index % 10).append("00;\n  b: ").append(index).append(";\n}\n");
+            if (index % 5 == 0) {
+                css.append("@media print {\n  .p").append(index).append(" {\n    y: 1;\n    a: 2;\n  }\n}\n");
+            }
+        }
+
+        List<TextRange> changedRangesSequential = new ArrayList<TextRange>();
+        List<TextRange> changedRangesParallel   = new ArrayList<TextRange>();
+        String sortedSequential = Css.getShifted(css.toString(), changedRangesSequential, Integer.MAX_VALUE);
+        String sortedParallel   = Css.getShifted(css.toString(), changedRangesParallel, 0);
+
+        assertFalse(css.toString().equals(sortedSequential));
+        assertEquals(sortedSequential, sortedParallel);
+        assertEquals(changedRangesSequential.toString(), changedRangesParallel.toString());
+    }
+}
@@ -0,0 +1,50 @@
+package com.kstenschke.shifter.models.shiftableTypes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class JsVariablesDeclarationsTest {
+
+    @Test
+    public void testIsJsVariables() throws Exception {
+        assertTrue(JsVariablesDeclarations.isJsVariables("var a = 1;\n\n// b\nvar b = 2;", "app.js"));
+        assertTrue(JsVariablesDeclarations.isJsVariables("const a = f(1, 2), b = 'x;';", "app.js"));
+        assertFalse(JsVariablesDeclarations.isJsVariables("var a = [1, 2];", "app.js"));
+        assertFalse(JsVariablesDeclarations.isJsVariables("var a = 1;\nlet b = 2;", "app.js"));
+        assertFalse(JsVariablesDeclarations.isJsVariables("var a = 1;\nvar b = 2", "app.js"));
+        assertFalse(JsVariablesDeclarations.isJsVariables("variable = 1;\nvar b = 2;", "app.js"));
+    }
+
+    @Test
+    public void testGetShiftedMerges() throws Exception {
+        assertEquals(
+                "var a = 1,\n\tb = {c: 2, d: 3}, // b\n\n\t// e\n\te = 'f;';",
+                JsVariablesDeclarations.getShifted("var a = 1;\nvar b = {c: 2, d: 3}; // b\n\n// e\nvar e = 'f;';", "app.js"));
+    }
+
+    @Test
+    public void testGetShiftedSplits() throws Exception {
+        assertEquals(
+                "  let a = 1;\n  let b = g(2, 3); // b\n  let c;\n",
+                JsVariablesDeclarations.getShifted("  let a = 1,\n\tb = g(2, 3), // b\n\tc;\n", "app.js"));
+        assertEquals("const a = 1;\nconst b = 2;", JsVariablesDeclarations.getShifted("const a = 1, b = 2;", "app.js"));
+    }
+
+    @Test
+    public void testOnlyVarStatementsAreMergedOutsideOfJavaScript() throws Exception {
+        assertTrue(JsVariablesDeclarations.isJsVariables("let a = 1,\n\tb = 2;", "app.ts"));
+
+        // "let" / "const" statements of other languages (ex: Rust, Swift) are not detected
+        assertFalse(JsVariablesDeclarations.isJsVariables("let a = 1;\nlet b = 2;", "main.rs"));
+        assertFalse(JsVariablesDeclarations.isJsVariables("const a = 1;\nconst b = 2;", "main.swift"));
+        assertEquals("let a = 1;\nlet b = 2;", JsVariablesDeclarations.getShifted("let a = 1;\nlet b = 2;", "main.rs"));
+
+        // A single statement is not split
+        assertFalse(JsVariablesDeclarations.isJsVariables("var a = 1, b = 2;", "index.html"));
+
+        // Multiple "var" statements are merged
+        assertTrue(JsVariablesDeclarations.isJsVariables("var a = 1;\nvar b = 2;", "index.html"));
+        assertEquals("var a = 1,\n\tb = 2;", JsVariablesDeclarations.getShifted("var a = 1;\nvar b = 2;", "index.html"));
+    }
+}
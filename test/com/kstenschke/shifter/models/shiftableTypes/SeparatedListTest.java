@@ -0,0 +1,52 @@
+package com.kstenschke.shifter.models.shiftableTypes;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SeparatedListTest {
+
+    @Test
+    public void testIsSeparatedList() throws Exception {
+        assertTrue(SeparatedList.isSeparatedList("b, a, c"));
+        assertTrue(SeparatedList.isSeparatedList("\"a\",\"b\""));
+        assertFalse(SeparatedList.isSeparatedList("\"a, b\""));
+        assertFalse(SeparatedList.isSeparatedList("foo(a, b)"));
+        assertTrue(SeparatedList.isSeparatedList("x|y", "|"));
+    }
+
+    @Test
+    public void testTokenize() throws Exception {
+        SeparatedList.Tokens tokens = SeparatedList.tokenize(" f(a, b), 'x,y' ,[1, 2]", ",");
+        assertEquals(Arrays.asList("f(a, b)", "'x,y'", "[1, 2]"), tokens.items);
+        assertEquals(Arrays.asList(", ", " ,"), tokens.separators);
+        assertEquals(" ", tokens.prefix);
+
+        // List wrapped into brackets, escaped quote within item, apostrophe within word
+        tokens = SeparatedList.tokenize("(3, 'a\\', b', don't, 1)", ",");
+        assertEquals(Arrays.asList("3", "'a\\', b'", "don't", "1"), tokens.items);
+        assertEquals("(", tokens.prefix);
+        assertEquals(")", tokens.suffix);
+    }
+
+    @Test
+    public void testSortSeparatedList() throws Exception {
+        assertEquals("a,b, c,  d", SeparatedList.sortSeparatedList("d,c, b,  a", ",", true));
+        assertEquals("(10, 9, 2)", SeparatedList.sortSeparatedList("(2, 10, 9)", ",", false));
+        assertEquals("\"b,c\", a", SeparatedList.sortSeparatedList("a, \"b,c\"", ",", true));
+    }
+
+    @Test
+    public void testTrailingDelimiter() throws Exception {
+        SeparatedList.Tokens tokens = SeparatedList.tokenize("c, b, a, ", ",");
+        assertEquals(Arrays.asList("c", "b", "a"), tokens.items);
+        assertEquals(", ", tokens.suffix);
+
+        assertEquals(2, SeparatedList.countItems("a, b,", ","));
+        assertEquals("a, b, c,", SeparatedList.sortSeparatedList("c, b, a,", ",", true));
+        assertEquals("a,\nb,\nc,\n", SeparatedList.sortSeparatedList("c,\nb,\na,\n", ",", true));
+        assertEquals("[a, b, c,]", SeparatedList.sortSeparatedList("[c, b, a,]", ",", true));
+    }
+}
@@ -0,0 +1,67 @@
+package com.kstenschke.shifter.models.shiftableTypes;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TupelTest {
+
+    @Test
+    public void testIsWordsTupel() throws Exception {
+        Tupel tupel = new Tupel();
+
+        assertTrue(tupel.isWordsTupel("a,b"));
+        assertTrue(tupel.isWordsTupel("foo || bar"));
+        assertTrue(tupel.isWordsTupel("foo bar"));
+
+        // Three parts
+        assertFalse(tupel.isWordsTupel("a, b, c"));
+        assertFalse(tupel.isWordsTupel("a-b-c"));
+        // Leading delimiter: empty 1st part
+        assertFalse(tupel.isWordsTupel(",a"));
+        assertFalse(tupel.isWordsTupel("-a"));
+        // Empty 2nd part
+        assertFalse(tupel.isWordsTupel("a,"));
+        assertFalse(tupel.isWordsTupel("a, "));
+        assertFalse(tupel.isWordsTupel("a,,"));
+        assertFalse(tupel.isWordsTupel("foo"));
+    }
+
+    @Test
+    public void testGetShiftedGluePriority() throws Exception {
+        // Multi-character delimiters precede those they contain
+        assertEquals("b !== a", new Tupel().getShifted("a !== b"));
+        assertEquals("b != a", new Tupel().getShifted("a != b"));
+        assertEquals("b <= a", new Tupel().getShifted("a <= b"));
+        assertEquals("b && a", new Tupel().getShifted("a && b"));
+
+        // "," precedes " "
+        assertEquals("b c, a", new Tupel().getShifted("a, b c"));
+        // " " is detected only if no other delimiter is
+        assertEquals("bar foo", new Tupel().getShifted("foo bar"));
+    }
+
+    @Test
+    public void testGetShiftedKeepsWhitespaceAroundDelimiter() throws Exception {
+        assertEquals("b  :\ta", new Tupel().getShifted("a  :\tb"));
+        assertEquals("b,a", new Tupel().getShifted("a,b"));
+        assertEquals("b\n+ a", new Tupel().getShifted("a\n+ b"));
+        // Whitespace around the whole tupel is trimmed
+        assertEquals("b, a", new Tupel().getShifted(" a, b "));
+    }
+
+    @Test
+    public void testGetShiftedUsesDetectedTupel() throws Exception {
+        Tupel tupel = new Tupel();
+
+        assertTrue(tupel.isWordsTupel("foo : bar"));
+        assertEquals("bar : foo", tupel.getShifted("foo : bar"));
+
+        // Other string than the detected one is detected anew
+        assertEquals("d - c", tupel.getShifted("c - d"));
+        assertEquals("bar : foo", tupel.getShifted("foo : bar"));
+
+        // Non-tupel is returned unchanged
+        assertEquals("a, b, c", tupel.getShifted("a, b, c"));
+    }
+}
@@ -0,0 +1,51 @@
+package com.kstenschke.shifter.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DataTypeGuesserTest {
+
+    @Test
+    public void testGuessPhpDataType() throws Exception {
+        assertEquals("string", DataTypeGuesser.guessPhpDataType("userName", null));
+        assertEquals("string", DataTypeGuesser.guessPhpDataType("filename2", null));
+        assertEquals("array", DataTypeGuesser.guessPhpDataType("itemIds", null));
+        assertEquals("int", DataTypeGuesser.guessPhpDataType("offset", null));
+        assertEquals("float", DataTypeGuesser.guessPhpDataType("percent", null));
+        assertEquals("Object", DataTypeGuesser.guessPhpDataType("dataObject", null));
+        assertEquals("bool", DataTypeGuesser.guessPhpDataType("hasChildren", null));
+        assertEquals(DataTypeGuesser.DATA_TYPE_UNKNOWN, DataTypeGuesser.guessPhpDataType("foo", null));
+    }
+
+    @Test
+    public void testGuessJsDataType() throws Exception {
+        assertEquals("*", DataTypeGuesser.guessJsDataType("$el", null));
+        assertEquals("*", DataTypeGuesser.guessJsDataType("targetElement", null));
+        assertEquals("Date", DataTypeGuesser.guessJsDataType("startDate", null));
+        assertEquals("number", DataTypeGuesser.guessJsDataType("i", null));
+        assertEquals("string", DataTypeGuesser.guessJsDataType("title", null));
+    }
+
+    @Test
+    public void testParseCustomRules() throws Exception {
+        List<String> invalidRules = new ArrayList<String>();
+        List<String[]> rules = DataTypeGuesser.parseCustomRules("\\w*uuid = string\n\nfoo\n(bar = int\n", invalidRules);
+
+        assertEquals(1, rules.size());
+        assertArrayEquals(new String[]{"\\w*uuid", "string"}, rules.get(0));
+        assertEquals(2, invalidRules.size());
+
+        // Backreferences and named groups cannot be combined w/ other rules, lookbehind and escaped backslashes can
+        invalidRules.clear();
+        rules = DataTypeGuesser.parseCustomRules("(\\w)\\1 = string\n(?<id>\\w+)id = int\n(\\w)\\k<x> = int\n(?<=a)b = bool\nc\\\\1 = string\n", invalidRules);
+
+        assertEquals(2, rules.size());
+        assertArrayEquals(new String[]{"(?<=a)b", "bool"}, rules.get(0));
+        assertArrayEquals(new String[]{"c\\\\1", "string"}, rules.get(1));
+        assertEquals(3, invalidRules.size());
+    }
+}
@@ -0,0 +1,40 @@
+package com.kstenschke.shifter.utils;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LinesDiffTest {
+
+    @Test
+    public void testSplitLines() throws Exception {
+        assertEquals(Arrays.asList("a\n", "b\n", "c"), LinesDiff.splitLines("a\nb\nc"));
+        assertEquals(Arrays.asList("a\n", "\n"), LinesDiff.splitLines("a\n\n"));
+        assertTrue(LinesDiff.splitLines("").isEmpty());
+    }
+
+    @Test
+    public void testGetHunks() throws Exception {
+        List<String> lines = Arrays.asList("a\n", "b\n", "c\n", "d\n", "e\n");
+
+        assertTrue(LinesDiff.getHunks(lines, lines).isEmpty());
+
+        // Swapped first and last line: two changed ranges, unchanged lines in between are kept
+        List<LinesDiff.Hunk> hunks = LinesDiff.getHunks(lines, Arrays.asList("e\n", "b\n", "c\n", "d\n", "a\n"));
+        assertEquals(2, hunks.size());
+        assertEquals(0, hunks.get(0).oldStart);
+        assertEquals(1, hunks.get(0).oldEnd);
+        assertEquals(4, hunks.get(1).oldStart);
+        assertEquals(5, hunks.get(1).oldEnd);
+
+        // Removed line
+        hunks = LinesDiff.getHunks(lines, Arrays.asList("a\n", "b\n", "d\n", "e\n"));
+        assertEquals(1, hunks.size());
+        assertEquals(2, hunks.get(0).oldStart);
+        assertEquals(3, hunks.get(0).oldEnd);
+        assertEquals(hunks.get(0).newStart, hunks.get(0).newEnd);
+    }
+}
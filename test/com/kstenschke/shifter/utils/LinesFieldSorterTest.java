@@ -0,0 +1,77 @@
+package com.kstenschke.shifter.utils;
+
+import com.kstenschke.shifter.ShifterPreferences;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LinesFieldSorterTest {
+
+    private static List<String> lines(String... lines) {
+        return new ArrayList<String>(Arrays.asList(lines));
+    }
+
+    @Test
+    public void testDetectFieldSeparator() throws Exception {
+        assertEquals("\t", LinesFieldSorter.detectFieldSeparator(lines("a\t1\n", "\n", "b\t2\n")));
+        assertEquals(";", LinesFieldSorter.detectFieldSeparator(lines("a;1;x,y\n", "b;2;z\n")));
+        assertEquals(",", LinesFieldSorter.detectFieldSeparator(lines("  a, 1, x\n", "  b, 2, y\n")));
+        assertNull(LinesFieldSorter.detectFieldSeparator(lines("a\n", "b\n")));
+        // Code: no table
+        assertNull(LinesFieldSorter.detectFieldSeparator(lines("$a = foo(1, 2);\n", "$b = bar(3);\n")));
+        assertNull(LinesFieldSorter.detectFieldSeparator(lines("a: 1,\n", "b: 2,\n")));
+        assertNull(LinesFieldSorter.detectFieldSeparator(lines("x = 1; y = 2; z = 3;\n", "x = 4; y = 5; z = 6;\n")));
+    }
+
+    @Test
+    public void testFromExpression() throws Exception {
+        assertNull(LinesFieldSorter.fromExpression("", ","));
+        assertNull(LinesFieldSorter.fromExpression("0", ","));
+        assertNull(LinesFieldSorter.fromExpression("/(/", ","));
+        assertNotNull(LinesFieldSorter.fromExpression("2", ","));
+        assertNotNull(LinesFieldSorter.fromExpression(":", null));
+    }
+
+    @Test
+    public void testExtractFieldOffsets() throws Exception {
+        assertArrayEquals(new int[]{2, 5, -1, -1}, LinesFieldSorter.fromExpression("2", ",").extractFieldOffsets(lines("a,foo,b\n", "bar\n")));
+        assertArrayEquals(new int[]{4, 7}, LinesFieldSorter.fromExpression("2", null).extractFieldOffsets(lines("  a foo b\n")));
+        assertArrayEquals(new int[]{3, 5}, LinesFieldSorter.fromExpression("/id=(\\d+)/", null).extractFieldOffsets(lines("id=42;\n")));
+    }
+
+    @Test
+    public void testSort() throws Exception {
+        int mode = ShifterPreferences.SORTING_MODE_CASE_INSENSITIVE;
+
+        assertEquals(
+                lines("x,9,b\n", "y,10,a\n", "z,foo,c\n"),
+                LinesFieldSorter.fromExpression("2", ",").sort(lines("z,foo,c\n", "y,10,a\n", "x,9,b\n"), false, mode));
+        assertEquals(
+                lines("b: 2.5\n", "a: -1\n", "c: -3\n"),
+                LinesFieldSorter.fromExpression(":", null).sort(lines("a: -1\n", "b: 2.5\n", "c: -3\n"), true, mode));
+        assertEquals(
+                lines("item2 = x\n", "item10 = x\n", "item1 = y\n"),
+                LinesFieldSorter.fromExpression("=", null).sort(lines("item1 = y\n", "item2 = x\n", "item10 = x\n"), false, mode));
+    }
+
+    @Test
+    public void testSortIgnoresTrailingDelimiterOfField() throws Exception {
+        int mode = ShifterPreferences.SORTING_MODE_CASE_INSENSITIVE;
+
+        // JSON / PHP array lines: numeric values followed by the lines' comma, last line w/o
+        assertEquals(
+                lines("\"b\": 1,\n", "\"c\": 3,\n", "\"a\": 5\n"),
+                LinesFieldSorter.fromExpression(":", null).sort(lines("\"a\": 5,\n", "\"b\": 1,\n", "\"c\": 3\n"), false, mode));
+        assertEquals(
+                lines("'d' => 0.5,\n", "'b' => 1.25,\n", "'a' => 1.5,\n", "'c' => 2\n"),
+                LinesFieldSorter.fromExpression("=>", null).sort(lines("'a' => 1.5,\n", "'b' => 1.25,\n", "'c' => 2,\n", "'d' => 0.5\n"), false, mode));
+        // Decimals compared numerically, not as text
+        assertEquals(
+                lines("2,\n", "1.5,\n", "1.25,\n", "0.5\n"),
+                LinesFieldSorter.fromExpression("/(.+)/", null).sort(lines("1.5,\n", "1.25,\n", "2,\n", "0.5\n"), true, mode));
+    }
+}
@@ -0,0 +1,49 @@
+package com.kstenschke.shifter.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PhpArraysConverterTest {
+
+    @Test
+    public void testGetArraySyntax() throws Exception {
+        assertEquals(PhpArraysConverter.SYNTAX_LONG, PhpArraysConverter.getArraySyntax("array(1, array(2));"));
+        assertEquals(PhpArraysConverter.SYNTAX_LONG, PhpArraysConverter.getArraySyntax("array ('a' => ')')"));
+        assertEquals(PhpArraysConverter.SYNTAX_SHORT, PhpArraysConverter.getArraySyntax("['x' => [1, 2]]"));
+        assertEquals(PhpArraysConverter.SYNTAX_NONE, PhpArraysConverter.getArraySyntax("array(1) + array(2)"));
+        assertEquals(PhpArraysConverter.SYNTAX_NONE, PhpArraysConverter.getArraySyntax("[1, 2"));
+        assertEquals(PhpArraysConverter.SYNTAX_NONE, PhpArraysConverter.getArraySyntax("$array"));
+    }
+
+    @Test
+    public void testConvertToShort() throws Exception {
+        assertEquals("[1, ['a' => f(2)]];", PhpArraysConverter.convert("array(1, array('a' => f(2)));", true));
+        assertEquals("['array(', /* array( */ $array(1)]", PhpArraysConverter.convert("array('array(', /* array( */ $array(1))", true));
+        assertEquals("['a' => [1], 'b' => $x->array(2)]", PhpArraysConverter.convert("array('a' => array(1), 'b' => $x->array(2))", true));
+    }
+
+    @Test
+    public void testConvertToLong() throws Exception {
+        assertEquals("array(1, array($a[0], 'b' => array()))", PhpArraysConverter.convert("[1, [$a[0], 'b' => []]]", false));
+        assertEquals("return array(']');", PhpArraysConverter.convert("return [']'];", false));
+        // List destructuring remains short syntax
+        assertEquals("[$a, [$b]] = $c;", PhpArraysConverter.convert("[$a, [$b]] = $c;", false));
+        // PHP 8 attributes remain "#[...]"
+        assertEquals("#[Attr(array('a'))]\nfunction f() {}", PhpArraysConverter.convert("#[Attr(['a'])]\nfunction f() {}", false));
+    }
+
+    @Test
+    public void testConvertSkipsHeredocs() throws Exception {
+        assertEquals(
+                "$a = [<<<EOT\n  array(1)\n  EOT, <<<'X'\n)\nX\n];",
+                PhpArraysConverter.convert("$a = array(<<<EOT\n  array(1)\n  EOT, <<<'X'\n)\nX\n);", true));
+    }
+
+    @Test
+    public void testConvertSkipsInlineHtml() throws Exception {
+        assertEquals(
+                "<?php $a = array(1); ?><p>[1]</p><?= array(2) ?>",
+                PhpArraysConverter.convert("<?php $a = [1]; ?><p>[1]</p><?= [2] ?>", false));
+    }
+}
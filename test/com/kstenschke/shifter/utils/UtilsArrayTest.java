@@ -2,6 +2,8 @@ package com.kstenschke.shifter.utils;
 
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.junit.Assert.*;
 
 public class UtilsArrayTest {
@@ -28,4 +30,17 @@ public class UtilsArrayTest {
         assertArrayEquals(new String[]{"a", "b", "c", "d"}, UtilsArray.mergeArrays(new String[]{"a", "b"}, new String[]{"b", "c", "d"}));
         assertArrayEquals(new String[]{"a", "b", "c", "d"}, UtilsArray.mergeArrays(new String[]{"a", "b", "c"}, new String[]{"b", "c", "d"}));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHasDuplicateItems() throws Exception {
+        assertFalse(UtilsArray.hasDuplicateItems(new String[]{"a", "b", "c"}));
+        assertTrue(UtilsArray.hasDuplicateItems(new String[]{"a", "b", "a"}));
+        assertTrue(UtilsArray.hasDuplicateItems(Arrays.asList("a", "A", "a")));
+    }
+
+    @Test
+    public void testReduceDuplicateItems() throws Exception {
+        assertArrayEquals(new String[]{"c", "a", "b"}, UtilsArray.reduceDuplicateItems(new String[]{"c", "a", "c", "b", "a"}));
+        assertEquals(Arrays.asList("a", "A", "b"), UtilsArray.reduceDuplicateItems(Arrays.asList("a", "A", "a", "b", "b")));
+    }
+}
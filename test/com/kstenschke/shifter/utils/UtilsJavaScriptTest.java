@@ -0,0 +1,32 @@
+package com.kstenschke.shifter.utils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class UtilsJavaScriptTest {
+
+    @Test
+    public void testFindNextMethodName() throws Exception {
+        assertEquals("foo", UtilsJavaScript.findNextMethodName("var obj = {\n  foo: function(a) {}, bar: function() {}\n};", 0));
+        assertEquals("bar", UtilsJavaScript.findNextMethodName("var obj = {\n  foo: function(a) {}, bar: function() {}\n};", 20));
+        assertEquals("$init", UtilsJavaScript.findNextMethodName("{ $init : async function () {} }", 0));
+
+        // ES6 method shorthand, control structures are no declarations
+        assertEquals("render", UtilsJavaScript.findNextMethodName("if (a) {\n}\nclass Foo {\n  render(props, state) {\n  }\n}", 0));
+        assertEquals("bar", UtilsJavaScript.findNextMethodName("for (i = 0; i < 3; i++) { obj.foo(i) { } }\nbar() { }", 0));
+
+        assertNull(UtilsJavaScript.findNextMethodName("var a = 1;\nfoo(a);", 0));
+        assertNull(UtilsJavaScript.findNextMethodName("foo: function() {}", 5));
+        assertNull(UtilsJavaScript.findNextMethodName("", 0));
+    }
+
+    @Test
+    public void testFindNextClassName() throws Exception {
+        assertEquals("Foo", UtilsJavaScript.findNextClassName("/**\n * @class\n */\nclass Foo extends Bar {}", 0));
+        assertEquals("Bar", UtilsJavaScript.findNextClassName("class Foo {}\nclass Bar {}", 5));
+
+        assertNull(UtilsJavaScript.findNextClassName("var className = 'a';", 0));
+        assertNull(UtilsJavaScript.findNextClassName("el.class = 'a';", 0));
+    }
+}
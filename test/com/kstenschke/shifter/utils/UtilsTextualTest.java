@@ -34,7 +34,24 @@ public class UtilsTextualTest {
 
     @Test
     public void testSortLines() throws Exception {
-        // @todo implement
+        List<String> lines = new ArrayList<String>();
+        lines.add("item10\n");
+        lines.add("Item2\n");
+        lines.add("item1\n");
+        lines.add("item02\n");
+        lines.add("\n");
+
+        List<String> linesSorted = UtilsTextual.sortLinesNatural(lines, false);
+        assertEquals("\n", linesSorted.get(0));
+        assertEquals("item1\n", linesSorted.get(1));
+        // Identical sort keys: original order is maintained
+        assertEquals("Item2\n", linesSorted.get(2));
+        assertEquals("item02\n", linesSorted.get(3));
+        assertEquals("item10\n", linesSorted.get(4));
+
+        linesSorted = UtilsTextual.sortLinesNatural(linesSorted, true);
+        assertEquals("item10\n", linesSorted.get(0));
+        assertEquals("\n", linesSorted.get(4));
     }
 
     @Test